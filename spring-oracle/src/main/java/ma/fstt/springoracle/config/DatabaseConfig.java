@@ -2,6 +2,7 @@ package ma.fstt.springoracle.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import ma.fstt.springoracle.service.SqlStatementStatistics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,9 +27,12 @@ public class DatabaseConfig {
     @Value("${spring.datasource.driver-class-name}")
     private String driverClassName;
 
+    @Value("${performance.sql-timing.enabled:true}")
+    private boolean sqlTimingEnabled;
+
     @Bean
     @Primary
-    public DataSource dataSource() {
+    public DataSource dataSource(SqlStatementStatistics sqlStatistics) {
         HikariConfig config = new HikariConfig();
         config.setDriverClassName(driverClassName);
         config.setJdbcUrl(url);
@@ -46,7 +50,9 @@ public class DatabaseConfig {
         config.setValidationTimeout(5000);
         config.setMaxLifetime(1800000); // 30 minutes
 
-        return new HikariDataSource(config);
+        HikariDataSource dataSource = new HikariDataSource(config);
+        // Times the application's own statements, see /api/performance/sql/top
+        return sqlTimingEnabled ? new SqlTimingDataSource(dataSource, sqlStatistics) : dataSource;
     }
 
     @Bean
@@ -0,0 +1,57 @@
+package ma.fstt.springoracle.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import ma.fstt.springoracle.service.RouteLatencyRecorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Times every handled request against its route, e.g. "GET /api/performance/awr". Mapping
+ * patterns are used rather than raw paths so path variables do not create new routes.
+ * Streaming responses are timed until the handler returns, not until the stream ends.
+ */
+@Component
+public class RouteMetricsInterceptor implements AsyncHandlerInterceptor {
+    private static final String START_ATTRIBUTE = RouteMetricsInterceptor.class.getName() + ".start";
+    private static final String ROUTE_ATTRIBUTE = RouteMetricsInterceptor.class.getName() + ".route";
+
+    @Autowired
+    private RouteLatencyRecorder recorder;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = request.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED");
+        request.setAttribute(ROUTE_ATTRIBUTE, route);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        recorder.started(route);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            request.removeAttribute(START_ATTRIBUTE);
+            String route = (String) request.getAttribute(ROUTE_ATTRIBUTE);
+            recorder.completed(route, System.nanoTime() - (Long) start, response.getStatus(), false);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            request.removeAttribute(START_ATTRIBUTE);
+            String route = (String) request.getAttribute(ROUTE_ATTRIBUTE);
+            recorder.completed(route, System.nanoTime() - (Long) start, response.getStatus(), ex != null);
+        }
+    }
+}
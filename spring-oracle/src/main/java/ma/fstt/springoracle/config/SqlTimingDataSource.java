@@ -0,0 +1,187 @@
+package ma.fstt.springoracle.config;
+
+import ma.fstt.springoracle.service.SqlStatementStatistics;
+import ma.fstt.springoracle.service.SqlStatementStatistics.StatementStats;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource wrapper timing every statement the application runs, JdbcTemplate and JPA alike.
+ * Connections, statements and result sets are wrapped in JDK proxies that record connection
+ * wait, execution time, rows fetched and fetch round trips into SqlStatementStatistics.
+ * Round trips are derived from the statement fetch size the same way the driver fetches:
+ * the execute call returns the first batch, every further fetchSize rows cost one more.
+ */
+public class SqlTimingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final SqlStatementStatistics statistics;
+
+    public SqlTimingDataSource(DataSource target, SqlStatementStatistics statistics) {
+        super(target);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = super.getConnection();
+            statistics.recordConnection(System.nanoTime() - start, false);
+            return wrap(connection);
+        } catch (SQLException | RuntimeException e) {
+            statistics.recordConnection(System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    // Lets the container close the wrapped pool on shutdown
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        // Proxies are compared by identity, not by the wrapped object
+        if (method.getName().equals("equals") && args != null && args.length == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && args == null) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlTimingDataSource.invoke(proxy, connection, method, args);
+            if (result instanceof Statement statement) {
+                // prepareStatement / prepareCall carry their SQL, createStatement gets it per execute
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler(statement, sql != null ? statistics.statement(sql) : null));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final StatementStats preparedStats;
+
+        private StatementHandler(Statement statement, StatementStats preparedStats) {
+            this.statement = statement;
+            this.preparedStats = preparedStats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = SqlTimingDataSource.invoke(proxy, statement, method, args);
+                return name.equals("getResultSet") && result instanceof ResultSet resultSet
+                        ? wrapResultSet(resultSet, preparedStats) : result;
+            }
+            StatementStats stats = preparedStats;
+            if (args != null && args.length > 0 && args[0] instanceof String sql) {
+                stats = statistics.statement(sql);
+            }
+            if (stats == null) {
+                return SqlTimingDataSource.invoke(proxy, statement, method, args);
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = SqlTimingDataSource.invoke(proxy, statement, method, args);
+                failed = false;
+                return result instanceof ResultSet resultSet ? wrapResultSet(resultSet, stats) : result;
+            } finally {
+                stats.recordExecution(System.nanoTime() - start, failed);
+            }
+        }
+
+        private ResultSet wrapResultSet(ResultSet resultSet, StatementStats stats) throws SQLException {
+            if (stats == null) {
+                return resultSet;
+            }
+            return (ResultSet) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, stats, statement.getFetchSize()));
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final StatementStats stats;
+        private final int fetchSize;
+        private long rows;
+        private long fetchNanos;
+        private boolean recorded;
+
+        private ResultSetHandler(ResultSet resultSet, StatementStats stats, int fetchSize) {
+            this.resultSet = resultSet;
+            this.stats = stats;
+            this.fetchSize = Math.max(1, fetchSize);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                boolean hasRow = (Boolean) SqlTimingDataSource.invoke(proxy, resultSet, method, args);
+                fetchNanos += System.nanoTime() - start;
+                if (hasRow) {
+                    rows++;
+                } else {
+                    record();
+                }
+                return hasRow;
+            }
+            if (name.equals("close")) {
+                record();
+            }
+            return SqlTimingDataSource.invoke(proxy, resultSet, method, args);
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                stats.recordFetch(rows, fetchNanos, rows / fetchSize);
+            }
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package ma.fstt.springoracle.controller;
 
+import ma.fstt.springoracle.dto.AshTopActivityDTO;
+import ma.fstt.springoracle.dto.AwrDiffReportDTO;
+import ma.fstt.springoracle.dto.CollectionBenchmarkDTO;
+import ma.fstt.springoracle.dto.MetricsHistoryDTO;
+import ma.fstt.springoracle.dto.MonitoringTargetDTO;
+import ma.fstt.springoracle.dto.MonitoringTargetStatusDTO;
+import ma.fstt.springoracle.dto.RouteLatencyDTO;
+import ma.fstt.springoracle.dto.SqlStatementStatsDTO;
+import ma.fstt.springoracle.exception.ResourceNotFoundException;
 import ma.fstt.springoracle.model.PerformanceMetrics;
+import ma.fstt.springoracle.service.MetricsExportService.ExportFormat;
 import ma.fstt.springoracle.service.PerformanceMonitoringService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -21,22 +36,253 @@ public class PerformanceMonitoringController {
     @GetMapping("/awr")
     public ResponseEntity<List<Map<String, Object>>> getAWRReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String target) {
         try {
-            return ResponseEntity.ok(monitoringService.getAWRReport(start, end));
+            return ResponseEntity.ok(monitoringService.getAWRReport(target, start, end));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/awr/diff")
+    public ResponseEntity<AwrDiffReportDTO> getAwrDiff(
+            @RequestParam long baseBeginSnap,
+            @RequestParam long baseEndSnap,
+            @RequestParam long compareBeginSnap,
+            @RequestParam long compareEndSnap,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String target) {
+        try {
+            return ResponseEntity.ok(monitoringService.getAwrDiff(target, baseBeginSnap, baseEndSnap, compareBeginSnap, compareEndSnap, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/awr/cache")
+    public ResponseEntity<Map<String, Long>> getAwrCacheStats() {
+        return ResponseEntity.ok(monitoringService.getAwrCacheStats());
+    }
+
     @GetMapping("/ash")
-    public ResponseEntity<List<Map<String, Object>>> getASHReport() {
-        return ResponseEntity.ok(monitoringService.getASHReport());
+    public ResponseEntity<List<Map<String, Object>>> getASHReport(@RequestParam(required = false) String target) {
+        try {
+            return ResponseEntity.ok(monitoringService.getASHReport(target));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/ash/top")
+    public ResponseEntity<AshTopActivityDTO> getAshTopActivity(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "60") int bucketSeconds) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(monitoringService.getAshTopActivity(from, to, limit, bucketSeconds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/metrics")
-    public ResponseEntity<PerformanceMetrics> getRealTimeMetrics() {
-        return ResponseEntity.ok(monitoringService.getRealTimeMetrics());
+    public ResponseEntity<PerformanceMetrics> getRealTimeMetrics(@RequestParam(required = false) String target) {
+        try {
+            return ResponseEntity.ok(monitoringService.getRealTimeMetrics(target));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/metrics/recent")
+    public ResponseEntity<List<PerformanceMetrics>> getRecentMetrics(
+            @RequestParam(defaultValue = "60") int count,
+            @RequestParam(required = false) String target) {
+        return ResponseEntity.ok(monitoringService.getRecentMetrics(target, count));
+    }
+
+    @GetMapping("/targets")
+    public ResponseEntity<List<MonitoringTargetStatusDTO>> getTargets() {
+        return ResponseEntity.ok(monitoringService.getTargets());
+    }
+
+    @PostMapping("/targets")
+    public ResponseEntity<MonitoringTargetStatusDTO> registerTarget(@RequestBody MonitoringTargetDTO target) {
+        try {
+            return ResponseEntity.ok(monitoringService.registerTarget(target));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @DeleteMapping("/targets/{id}")
+    public ResponseEntity<Void> removeTarget(@PathVariable String id) {
+        monitoringService.removeTarget(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/metrics/rates")
+    public ResponseEntity<Map<String, Double>> getCounterRates(@RequestParam(required = false) String target) {
+        try {
+            return ResponseEntity.ok(monitoringService.getCounterRates(target));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/metrics/collector/benchmark")
+    public ResponseEntity<CollectionBenchmarkDTO> benchmarkMetricsCollection(
+            @RequestParam(defaultValue = "20") int iterations) {
+        return ResponseEntity.ok(monitoringService.benchmarkMetricsCollection(iterations));
+    }
+
+    @GetMapping("/metrics/writer")
+    public ResponseEntity<Map<String, Long>> getMetricsWriterStats() {
+        return ResponseEntity.ok(monitoringService.getMetricsWriterStats());
+    }
+
+    @GetMapping("/metrics/history")
+    public ResponseEntity<MetricsHistoryDTO> getMetricsHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        try {
+            return ResponseEntity.ok(monitoringService.getMetricsHistory(start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/metrics/store")
+    public ResponseEntity<List<PerformanceMetrics>> getStoredMetrics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return ResponseEntity.ok(monitoringService.getStoredMetrics(start, end));
+    }
+
+    @GetMapping("/metrics/store/downsample")
+    public ResponseEntity<MetricsHistoryDTO> getStoredMetricsDownsampled(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "60") long bucketSeconds) {
+        try {
+            return ResponseEntity.ok(monitoringService.getStoredMetricsDownsampled(start, end, bucketSeconds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/metrics/store/stats")
+    public ResponseEntity<Map<String, Object>> getMetricsStoreStats() {
+        return ResponseEntity.ok(monitoringService.getMetricsStoreStats());
+    }
+
+    @GetMapping("/metrics/export")
+    public ResponseEntity<StreamingResponseBody> exportMetrics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                // Sync flush so every flushed batch reaches the client right away
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192, true)) {
+                    monitoringService.exportMetrics(start, end, exportFormat, gzipOut);
+                }
+            } else {
+                monitoringService.exportMetrics(start, end, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"performance-metrics." + exportFormat.getExtension() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // gzip listed, or covered by "*", with a non-zero q-value; "gzip;q=0" is a refusal
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        Double quality = gzip != null ? gzip : wildcard;
+        return quality != null && quality > 0;
+    }
+
+    @GetMapping(value = "/metrics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMetrics() {
+        try {
+            return ResponseEntity.ok(monitoringService.streamMetrics());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
+    @GetMapping("/metrics/stream/stats")
+    public ResponseEntity<Map<String, Long>> getMetricsStreamStats() {
+        return ResponseEntity.ok(monitoringService.getMetricsStreamStats());
+    }
+
+    @GetMapping("/routes")
+    public ResponseEntity<List<RouteLatencyDTO>> getRouteLatencies() {
+        return ResponseEntity.ok(monitoringService.getRouteLatencies());
+    }
+
+    @GetMapping("/sql/top")
+    public ResponseEntity<List<SqlStatementStatsDTO>> getTopStatements(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "totalTime") String orderBy) {
+        try {
+            return ResponseEntity.ok(monitoringService.getTopStatements(limit, orderBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/sql/connections")
+    public ResponseEntity<Map<String, Object>> getConnectionWaitStats() {
+        return ResponseEntity.ok(monitoringService.getConnectionWaitStats());
+    }
 }
@@ -2,9 +2,20 @@ package ma.fstt.springoracle.controller;
 
 
 import lombok.RequiredArgsConstructor;
+import ma.fstt.springoracle.dto.BaselineEvolveDTO;
+import ma.fstt.springoracle.dto.BaselineUsageReportDTO;
+import ma.fstt.springoracle.dto.PlanBaselineDTO;
+import ma.fstt.springoracle.dto.SqlTuningCampaignDTO;
+import ma.fstt.springoracle.dto.SqlTuningJobDTO;
+import ma.fstt.springoracle.dto.StatsGatheringRunDTO;
+import ma.fstt.springoracle.dto.StatsGatheringTaskDTO;
+import ma.fstt.springoracle.model.PlanRegression;
 import ma.fstt.springoracle.model.SlowQuery;
+import ma.fstt.springoracle.model.SqlPlanHistory;
 import ma.fstt.springoracle.service.PerformanceOptimizationService;
+import ma.fstt.springoracle.service.SqlTuningJobQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 //import com.oracle.admin.service.PerformanceOptimizationService;
@@ -24,8 +35,184 @@ public class PerformanceOptimizationController {
 
 
     @PostMapping("/optimize-query/{queryId}")
-    public ResponseEntity<String> optimizeQuery(@PathVariable Long queryId) {
-        return ResponseEntity.ok(performanceOptimizationService.optimizeQuery(queryId));
+    public ResponseEntity<SqlTuningJobDTO> optimizeQuery(@PathVariable Long queryId) {
+        try {
+            SqlTuningJobDTO job = performanceOptimizationService.optimizeQuery(queryId);
+            if (SqlTuningJobQueue.QUEUED.equals(job.getStatus()) || SqlTuningJobQueue.RUNNING.equals(job.getStatus())) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+            }
+            return ResponseEntity.ok(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/tuning-jobs")
+    public ResponseEntity<SqlTuningJobDTO> submitTuningJob(@RequestParam Long queryId) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(performanceOptimizationService.submitTuningJob(queryId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/tuning-jobs")
+    public ResponseEntity<List<SqlTuningJobDTO>> getTuningJobs() {
+        return ResponseEntity.ok(performanceOptimizationService.getTuningJobs());
+    }
+
+    @GetMapping("/tuning-jobs/{jobId}")
+    public ResponseEntity<SqlTuningJobDTO> getTuningJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(performanceOptimizationService.getTuningJob(jobId));
+    }
+
+    @DeleteMapping("/tuning-jobs/{jobId}")
+    public ResponseEntity<SqlTuningJobDTO> cancelTuningJob(@PathVariable Long jobId) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.cancelTuningJob(jobId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/tuning-cache")
+    public ResponseEntity<Map<String, Object>> getTuningCacheStats() {
+        return ResponseEntity.ok(performanceOptimizationService.getTuningCacheStats());
+    }
+
+    // Forces the next request for every statement to run the advisor again
+    @DeleteMapping("/tuning-cache")
+    public ResponseEntity<Void> clearTuningCache() {
+        performanceOptimizationService.clearTuningCache();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Tunes the listed slow queries, or the slowest identified ones
+    @PostMapping("/campaigns")
+    public ResponseEntity<SqlTuningCampaignDTO> startTuningCampaign(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) List<Long> queryIds,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(performanceOptimizationService.startTuningCampaign(name, queryIds, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/campaigns")
+    public ResponseEntity<List<SqlTuningCampaignDTO>> getTuningCampaigns() {
+        return ResponseEntity.ok(performanceOptimizationService.getTuningCampaigns());
+    }
+
+    @GetMapping("/campaigns/{campaignId}")
+    public ResponseEntity<SqlTuningCampaignDTO> getTuningCampaign(@PathVariable Long campaignId) {
+        return ResponseEntity.ok(performanceOptimizationService.getTuningCampaign(campaignId));
+    }
+
+    @DeleteMapping("/campaigns/{campaignId}")
+    public ResponseEntity<SqlTuningCampaignDTO> cancelTuningCampaign(@PathVariable Long campaignId) {
+        return ResponseEntity.ok(performanceOptimizationService.cancelTuningCampaign(campaignId));
+    }
+
+    // Records an interval of plan history now instead of waiting for the schedule
+    @PostMapping("/plan-history/sample")
+    public ResponseEntity<List<PlanRegression>> samplePlanHistory() {
+        return ResponseEntity.ok(performanceOptimizationService.samplePlanHistory());
+    }
+
+    @GetMapping("/plan-history/{sqlId}")
+    public ResponseEntity<List<SqlPlanHistory>> getPlanHistory(@PathVariable String sqlId) {
+        return ResponseEntity.ok(performanceOptimizationService.getPlanHistory(sqlId));
+    }
+
+    @GetMapping("/plan-regressions")
+    public ResponseEntity<List<PlanRegression>> getPlanRegressions(@RequestParam(required = false) String status) {
+        return ResponseEntity.ok(performanceOptimizationService.getPlanRegressions(status));
+    }
+
+    @PostMapping("/plan-regressions/{regressionId}/resolve")
+    public ResponseEntity<PlanRegression> resolvePlanRegression(@PathVariable Long regressionId) {
+        return ResponseEntity.ok(performanceOptimizationService.resolvePlanRegression(regressionId));
+    }
+
+    // Loads a known good plan into a SQL plan baseline; source is AUTO, CURSOR_CACHE or AWR
+    @PostMapping("/baselines/load")
+    public ResponseEntity<Map<String, Object>> loadPlanBaseline(
+            @RequestParam String sqlId,
+            @RequestParam long planHashValue,
+            @RequestParam(defaultValue = "AUTO") String source,
+            @RequestParam(defaultValue = "false") boolean fixed) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.loadPlanBaseline(sqlId, planHashValue, source, fixed));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/plan-regressions/{regressionId}/baseline")
+    public ResponseEntity<Map<String, Object>> baselineRegression(@PathVariable Long regressionId) {
+        return ResponseEntity.ok(performanceOptimizationService.baselineRegression(regressionId));
+    }
+
+    @GetMapping("/baselines")
+    public ResponseEntity<List<PlanBaselineDTO>> getPlanBaselines(@RequestParam(required = false) String sqlId) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.getPlanBaselines(sqlId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/baselines/usage")
+    public ResponseEntity<BaselineUsageReportDTO> getBaselineUsage(@RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.getBaselineUsage(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/baselines/{sqlHandle}/evolve")
+    public ResponseEntity<BaselineEvolveDTO> evolvePlanBaseline(
+            @PathVariable String sqlHandle,
+            @RequestParam(required = false) String planName,
+            @RequestParam(defaultValue = "false") boolean accept) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.evolvePlanBaseline(sqlHandle, planName, accept));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/baselines/{sqlHandle}/plans/{planName}/accept")
+    public ResponseEntity<String> acceptPlanBaseline(@PathVariable String sqlHandle, @PathVariable String planName) {
+        return ResponseEntity.ok(performanceOptimizationService.acceptPlanBaseline(sqlHandle, planName));
+    }
+
+    @PutMapping("/baselines/{sqlHandle}/plans/{planName}")
+    public ResponseEntity<Integer> alterPlanBaseline(
+            @PathVariable String sqlHandle,
+            @PathVariable String planName,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Boolean fixed) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.alterPlanBaseline(sqlHandle, planName, enabled, fixed));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Drops one plan, or the whole baseline without planName
+    @DeleteMapping("/baselines/{sqlHandle}")
+    public ResponseEntity<Integer> dropPlanBaseline(
+            @PathVariable String sqlHandle,
+            @RequestParam(required = false) String planName) {
+        return ResponseEntity.ok(performanceOptimizationService.dropPlanBaseline(sqlHandle, planName));
     }
 
     @PostMapping("/gather-stats")
@@ -42,4 +229,52 @@ public class PerformanceOptimizationController {
         performanceOptimizationService.scheduleStatsGathering(schemaName);
         return ResponseEntity.ok().build();
     }
+
+    // Stale tables in the order a statistics run would gather them
+    @GetMapping("/stale-stats")
+    public ResponseEntity<List<StatsGatheringTaskDTO>> getStaleTables(
+            @RequestParam List<String> schemas,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.getStaleTables(schemas, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/stats-runs")
+    public ResponseEntity<StatsGatheringRunDTO> startStatsGathering(
+            @RequestParam List<String> schemas,
+            @RequestParam(required = false) Integer degree,
+            @RequestParam(required = false) Integer concurrency,
+            @RequestParam(required = false) Integer budgetMinutes,
+            @RequestParam(defaultValue = "1000") int maxTables) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(performanceOptimizationService
+                    .startStatsGathering(schemas, degree, concurrency, budgetMinutes, maxTables));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/stats-runs")
+    public ResponseEntity<List<StatsGatheringRunDTO>> getStatsGatheringRuns() {
+        return ResponseEntity.ok(performanceOptimizationService.getStatsGatheringRuns());
+    }
+
+    @GetMapping("/stats-runs/{runId}")
+    public ResponseEntity<StatsGatheringRunDTO> getStatsGatheringRun(@PathVariable long runId) {
+        return ResponseEntity.ok(performanceOptimizationService.getStatsGatheringRun(runId));
+    }
+
+    @DeleteMapping("/stats-runs/{runId}")
+    public ResponseEntity<StatsGatheringRunDTO> cancelStatsGatheringRun(@PathVariable long runId) {
+        try {
+            return ResponseEntity.ok(performanceOptimizationService.cancelStatsGatheringRun(runId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
 }
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.constraints.NotBlank;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/privileges")
@@ -78,4 +79,15 @@ public class PrivilegeController {
             @PathVariable @NotBlank String userName) {
         return ResponseEntity.ok(privilegeService.getGrantedObjectPrivileges(userName));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/dictionary-cache")
+    public ResponseEntity<Map<String, Map<String, Long>>> getDictionaryCacheStats() {
+        return ResponseEntity.ok(privilegeService.getDictionaryCacheStats());
+    }
+
+    @DeleteMapping("/dictionary-cache")
+    public ResponseEntity<Void> clearDictionaryCache() {
+        privilegeService.clearDictionaryCache();
+        return ResponseEntity.noContent().build();
+    }
+}
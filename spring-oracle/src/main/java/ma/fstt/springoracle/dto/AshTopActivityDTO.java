@@ -0,0 +1,28 @@
+package ma.fstt.springoracle.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AshTopActivityDTO {
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime from;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime to;
+    private long totalSamples;
+    private int bucketSeconds;
+    private List<AshTopEntryDTO> topSqlIds;
+    private List<AshTopEntryDTO> topEvents;
+    private List<AshTopEntryDTO> topWaitClasses;
+    private List<AshTopEntryDTO> topSessions;
+    private List<AshActivityBucketDTO> activity;
+}
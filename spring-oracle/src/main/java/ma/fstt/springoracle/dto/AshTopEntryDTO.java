@@ -0,0 +1,16 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AshTopEntryDTO {
+    private String key;
+    private long samples;
+    private double percent;
+}
@@ -0,0 +1,21 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AwrDiffEntryDTO {
+    private String name;
+    private String detail;
+    private Double baselinePerSecond;
+    private Double comparisonPerSecond;
+    private Double baselinePerTransaction;
+    private Double comparisonPerTransaction;
+    private Double changePerSecond;
+    private Double changePercent;
+}
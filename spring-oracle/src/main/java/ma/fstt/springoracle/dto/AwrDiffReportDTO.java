@@ -0,0 +1,20 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AwrDiffReportDTO {
+    private AwrPeriodDTO baseline;
+    private AwrPeriodDTO comparison;
+    private List<AwrDiffEntryDTO> loadProfile;
+    private List<AwrDiffEntryDTO> waitEvents;
+    private List<AwrDiffEntryDTO> topSql;
+}
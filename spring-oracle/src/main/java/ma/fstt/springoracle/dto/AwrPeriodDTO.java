@@ -0,0 +1,23 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AwrPeriodDTO {
+    private long beginSnapId;
+    private long endSnapId;
+    private LocalDateTime beginTime;
+    private LocalDateTime endTime;
+    private double elapsedSeconds;
+    private double transactions;
+    private double dbTimeSeconds;
+    private boolean instanceRestarted;
+}
@@ -0,0 +1,19 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BaselineEvolveDTO {
+    private String sqlHandle;
+    private String planName;
+    private String taskName;
+    private boolean implemented;
+    private int plansAccepted;
+    private String report;
+}
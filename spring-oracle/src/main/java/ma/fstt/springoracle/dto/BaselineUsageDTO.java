@@ -0,0 +1,23 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BaselineUsageDTO {
+    private Long slowQueryId;
+    private String sqlId;
+    private boolean inCursorCache;
+    private String signature;
+    private int cursorPlans;
+    private int baselinePlans;
+    private int acceptedPlans;
+    private int fixedPlans;
+    // Baseline plan the cached cursor was built from, null when none was used
+    private String usedBaselinePlan;
+}
@@ -0,0 +1,22 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BaselineUsageReportDTO {
+    private int statements;
+    private int inCursorCache;
+    private int withAcceptedBaseline;
+    private int usingBaseline;
+    // Share of cached statements whose cursor runs a baseline plan
+    private double coveragePercent;
+    private List<BaselineUsageDTO> entries;
+}
@@ -0,0 +1,23 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionBenchmarkDTO {
+    private int iterations;
+    private double legacyAvgMs;
+    private double legacyP50Ms;
+    private double legacyP95Ms;
+    private double legacyMaxMs;
+    private double singleQueryAvgMs;
+    private double singleQueryP50Ms;
+    private double singleQueryP95Ms;
+    private double singleQueryMaxMs;
+    private double speedup;
+}
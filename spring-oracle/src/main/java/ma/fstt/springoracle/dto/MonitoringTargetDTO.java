@@ -0,0 +1,11 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.Data;
+
+@Data
+public class MonitoringTargetDTO {
+    private String id;
+    private String url;
+    private String username;
+    private String password;
+}
@@ -0,0 +1,29 @@
+package ma.fstt.springoracle.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonitoringTargetStatusDTO {
+    private String id;
+    private String url;
+    private String username;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime lastSampleTime;
+    private long lastDurationMs;
+    private long samples;
+    private long failures;
+    private long consecutiveFailures;
+    private long skipped;
+    private String lastError;
+    private int activeConnections;
+    private int idleConnections;
+}
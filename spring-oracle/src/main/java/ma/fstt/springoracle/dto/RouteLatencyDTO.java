@@ -0,0 +1,24 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteLatencyDTO {
+    private String route;
+    private long requests;
+    private long serverErrors;
+    private long clientErrors;
+    private double errorRate;
+    private long inFlight;
+    private double meanMs;
+    private double p50Ms;
+    private double p99Ms;
+    private double p999Ms;
+    private double maxMs;
+}
@@ -0,0 +1,23 @@
+package ma.fstt.springoracle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlStatementStatsDTO {
+    private String fingerprint;
+    private long executions;
+    private long errors;
+    private double totalMs;
+    private double avgMs;
+    private double maxMs;
+    private double fetchMs;
+    private long rows;
+    private long roundTrips;
+    private double rowsPerExecution;
+}
@@ -0,0 +1,32 @@
+package ma.fstt.springoracle.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlTuningCampaignDTO {
+    private Long id;
+    private String name;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+    private String status;
+    private int statements;
+    private int queued;
+    private int running;
+    private int completed;
+    private int failed;
+    private int cancelled;
+    private int fromCache;
+    private double percentComplete;
+    // Jobs ordered by estimated benefit, highest first; recommendations are on /tuning-jobs/{id}
+    private List<SqlTuningJobDTO> jobs;
+}
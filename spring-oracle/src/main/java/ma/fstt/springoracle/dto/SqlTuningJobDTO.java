@@ -0,0 +1,40 @@
+package ma.fstt.springoracle.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlTuningJobDTO {
+    private Long id;
+    private Long slowQueryId;
+    private String sqlId;
+    private Long planHashValue;
+    private Boolean fromCache;
+    private Long campaignId;
+    private Double estimatedBenefit;
+    private String taskName;
+    private String status;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime submittedAt;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startedAt;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishedAt;
+    private String errorMessage;
+
+    // Live advisor progress from DBA_ADVISOR_LOG while the job runs
+    private String advisorStatus;
+    private String advisorMessage;
+    private Integer percentComplete;
+    private Integer recommendationCount;
+
+    private String recommendations;
+}
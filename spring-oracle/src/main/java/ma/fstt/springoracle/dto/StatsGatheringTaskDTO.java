@@ -0,0 +1,31 @@
+package ma.fstt.springoracle.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsGatheringTaskDTO {
+    private String owner;
+    private String tableName;
+    private Long numRows;
+    private long modifications;
+    private boolean truncated;
+    private boolean neverAnalyzed;
+    // Modifications as a share of the rows at the last gather
+    private Double changePercent;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastAnalyzed;
+    private String status;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startedAt;
+    private Long durationMs;
+    private String error;
+}
@@ -7,23 +7,31 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "performance_metrics")
+@Table(name = "performance_metrics",
+        indexes = @Index(name = "idx_performance_metrics_ts", columnList = "timestamp"))
 @Data
 public class PerformanceMetrics {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Column names are spelled out because PerformanceMetricsWriter inserts with plain JDBC
+    @Column(name = "cpu_usage_percent")
     private Double cpuUsagePercent;
 
+    @Column(name = "memory_usagemb")
     private Double memoryUsageMB;
 
+    @Column(name = "buffer_cache_hit_ratio")
     private Double bufferCacheHitRatio;
 
+    @Column(name = "io_operations_per_second")
     private Double ioOperationsPerSecond;
 
+    @Column(name = "pga_usagemb")
     private Double pgaUsageMB;
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    @Column(name = "timestamp")
     private LocalDateTime timestamp;
 }
@@ -0,0 +1,54 @@
+package ma.fstt.springoracle.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "SQL_PLAN_REGRESSIONS")
+@Data
+public class PlanRegression {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "SQL_ID", nullable = false)
+    private String sqlId;
+
+    @Column(name = "DETECTED_AT", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime detectedAt;
+
+    @Column(name = "STATUS", nullable = false)
+    private String status; // OPEN, RESOLVED
+
+    @Column(name = "RESOLVED_AT")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime resolvedAt;
+
+    @Column(name = "REGRESSED_PLAN_HASH_VALUE", nullable = false)
+    private Long regressedPlanHashValue;
+
+    @Column(name = "BEST_PLAN_HASH_VALUE", nullable = false)
+    private Long bestPlanHashValue;
+
+    // Microseconds per execution over the whole recorded history of each plan
+    @Column(name = "REGRESSED_ELAPSED_PER_EXEC")
+    private Double regressedElapsedPerExec;
+
+    @Column(name = "BEST_ELAPSED_PER_EXEC")
+    private Double bestElapsedPerExec;
+
+    @Column(name = "SLOWDOWN")
+    private Double slowdown;
+
+    @Lob
+    @Column(name = "REGRESSED_PLAN")
+    private String regressedPlan;
+
+    @Lob
+    @Column(name = "BEST_PLAN")
+    private String bestPlan;
+}
@@ -6,7 +6,10 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "SLOW_QUERIES")
+@Table(name = "SLOW_QUERIES", indexes = {
+        @Index(name = "IDX_SLOW_QUERIES_SQL_PLAN", columnList = "SQL_ID, PLAN_HASH_VALUE"),
+        @Index(name = "IDX_SLOW_QUERIES_FINGERPRINT", columnList = "FINGERPRINT")
+})
 @Data
 public class SlowQuery {
     @Id
@@ -16,6 +19,20 @@ public class SlowQuery {
     @Column(name = "SQL_ID")
     private String sqlId;
 
+    @Column(name = "PLAN_HASH_VALUE")
+    private Long planHashValue;
+
+    // Statement shape this row stands for; SQL_ID is its most expensive cursor at the last capture
+    @Column(name = "FINGERPRINT", length = 64)
+    private String fingerprint;
+
+    @Column(name = "FORCE_MATCHING_SIGNATURE", length = 24)
+    private String forceMatchingSignature;
+
+    // Distinct cursors folded into this row at the last capture
+    @Column(name = "SQL_ID_COUNT")
+    private Integer sqlIdCount;
+
     @Column(name = "SQL_TEXT", length = 4000)
     private String sqlText;
 
@@ -0,0 +1,43 @@
+package ma.fstt.springoracle.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// What one plan of a tracked statement did between two samples
+@Entity
+@Table(name = "SQL_PLAN_HISTORY", indexes = @Index(name = "IDX_PLAN_HISTORY_SQL", columnList = "SQL_ID, SAMPLE_TIME"))
+@Data
+public class SqlPlanHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "SQL_ID", nullable = false)
+    private String sqlId;
+
+    @Column(name = "PLAN_HASH_VALUE", nullable = false)
+    private Long planHashValue;
+
+    @Column(name = "SAMPLE_TIME", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime sampleTime;
+
+    @Column(name = "EXECUTIONS", nullable = false)
+    private Long executions;
+
+    // Microseconds, like v$sqlstats
+    @Column(name = "ELAPSED_TIME", nullable = false)
+    private Double elapsedTime;
+
+    @Column(name = "CPU_TIME", nullable = false)
+    private Double cpuTime;
+
+    @Column(name = "BUFFER_GETS", nullable = false)
+    private Long bufferGets;
+
+    @Column(name = "ELAPSED_PER_EXEC")
+    private Double elapsedPerExec;
+}
@@ -0,0 +1,66 @@
+package ma.fstt.springoracle.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "SQL_TUNING_JOBS")
+@Data
+public class SqlTuningJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "SLOW_QUERY_ID", nullable = false)
+    private Long slowQueryId;
+
+    @Column(name = "SQL_ID", nullable = false)
+    private String sqlId;
+
+    // Plan and statistics the job was submitted against, see TuningRecommendationCache
+    @Column(name = "PLAN_HASH_VALUE")
+    private Long planHashValue;
+
+    @Column(name = "STATS_TIMESTAMP")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime statsTimestamp;
+
+    @Column(name = "FROM_CACHE")
+    private Boolean fromCache;
+
+    // Set when the job was submitted as part of a tuning campaign
+    @Column(name = "CAMPAIGN_ID")
+    private Long campaignId;
+
+    @Column(name = "TASK_NAME")
+    private String taskName;
+
+    @Column(name = "STATUS", nullable = false)
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+
+    @Column(name = "SUBMITTED_AT", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime submittedAt;
+
+    @Column(name = "STARTED_AT")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "FINISHED_AT")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "ERROR_MESSAGE", length = 4000)
+    private String errorMessage;
+
+    // Highest benefit the advisor estimated for its recommendations, in percent
+    @Column(name = "ESTIMATED_BENEFIT")
+    private Double estimatedBenefit;
+
+    @Lob
+    @Column(name = "RECOMMENDATIONS")
+    private String recommendations;
+}
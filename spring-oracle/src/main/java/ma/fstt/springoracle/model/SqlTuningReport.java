@@ -0,0 +1,46 @@
+package ma.fstt.springoracle.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "SQL_TUNING_REPORTS", indexes = @Index(name = "IDX_TUNING_REPORTS_SQL_PLAN", columnList = "SQL_ID, PLAN_HASH_VALUE"))
+@Data
+public class SqlTuningReport {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "SQL_ID", nullable = false)
+    private String sqlId;
+
+    @Column(name = "PLAN_HASH_VALUE", nullable = false)
+    private Long planHashValue;
+
+    // Most recent LAST_ANALYZED of the objects in the plan, null when none has statistics
+    @Column(name = "STATS_TIMESTAMP")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime statsTimestamp;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "LAST_USED_AT")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastUsedAt;
+
+    @Column(name = "USE_COUNT")
+    private Long useCount;
+
+    // Highest benefit the advisor estimated for its recommendations, in percent
+    @Column(name = "ESTIMATED_BENEFIT")
+    private Double estimatedBenefit;
+
+    @Lob
+    @Column(name = "RECOMMENDATIONS")
+    private String recommendations;
+}
@@ -0,0 +1,16 @@
+package ma.fstt.springoracle.repository;
+
+import ma.fstt.springoracle.model.PlanRegression;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PlanRegressionRepository extends JpaRepository<PlanRegression, Long> {
+    List<PlanRegression> findAllByOrderByDetectedAtDesc();
+
+    List<PlanRegression> findByStatusOrderByDetectedAtDesc(String status);
+
+    Optional<PlanRegression> findFirstBySqlIdAndRegressedPlanHashValueOrderByDetectedAtDesc(String sqlId,
+                                                                                           Long regressedPlanHashValue);
+}
@@ -2,10 +2,15 @@ package ma.fstt.springoracle.repository;
 
 import ma.fstt.springoracle.model.SlowQuery;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface SlowQueryRepository extends JpaRepository<SlowQuery, Long> {
     // Custom query to find slow queries by status, ordered by elapsed time descending
     List<SlowQuery> findByStatusOrderByElapsedTimeDesc(String status);
+
+    // Statements worth following, most expensive first
+    @Query("SELECT s.sqlId FROM SlowQuery s WHERE s.sqlId IS NOT NULL GROUP BY s.sqlId ORDER BY MAX(s.elapsedTime) DESC")
+    List<String> findTrackedSqlIds();
 }
@@ -0,0 +1,47 @@
+package ma.fstt.springoracle.repository;
+
+import ma.fstt.springoracle.model.SqlPlanHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SqlPlanHistoryRepository extends JpaRepository<SqlPlanHistory, Long> {
+
+    interface PlanTotals {
+        Long getPlanHashValue();
+
+        Long getExecutions();
+
+        Double getElapsedTime();
+    }
+
+    List<SqlPlanHistory> findBySqlIdOrderBySampleTimeDesc(String sqlId);
+
+    // Recorded executions and elapsed time of every plan of a statement
+    @Query("""
+            SELECT h.planHashValue AS planHashValue, SUM(h.executions) AS executions, SUM(h.elapsedTime) AS elapsedTime
+            FROM SqlPlanHistory h
+            WHERE h.sqlId = :sqlId
+            GROUP BY h.planHashValue
+            """)
+    List<PlanTotals> findPlanTotals(@Param("sqlId") String sqlId);
+
+    // Same, over the samples taken after a point in time
+    @Query("""
+            SELECT h.planHashValue AS planHashValue, SUM(h.executions) AS executions, SUM(h.elapsedTime) AS elapsedTime
+            FROM SqlPlanHistory h
+            WHERE h.sqlId = :sqlId AND h.sampleTime > :since
+            GROUP BY h.planHashValue
+            """)
+    List<PlanTotals> findPlanTotalsSince(@Param("sqlId") String sqlId, @Param("since") LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SqlPlanHistory h WHERE h.sampleTime < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,10 @@
+package ma.fstt.springoracle.repository;
+
+import ma.fstt.springoracle.model.SqlTuningCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface SqlTuningCampaignRepository extends JpaRepository<SqlTuningCampaign, Long> {
+    List<SqlTuningCampaign> findAllByOrderByCreatedAtDesc();
+}
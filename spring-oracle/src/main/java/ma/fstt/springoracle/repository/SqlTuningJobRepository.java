@@ -0,0 +1,19 @@
+package ma.fstt.springoracle.repository;
+
+import ma.fstt.springoracle.model.SqlTuningJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SqlTuningJobRepository extends JpaRepository<SqlTuningJob, Long> {
+    List<SqlTuningJob> findAllByOrderBySubmittedAtDesc();
+
+    List<SqlTuningJob> findByStatusIn(Collection<String> statuses);
+
+    List<SqlTuningJob> findByCampaignIdOrderByIdAsc(Long campaignId);
+
+    // A statement already waiting or being tuned
+    Optional<SqlTuningJob> findFirstBySlowQueryIdAndStatusIn(Long slowQueryId, Collection<String> statuses);
+}
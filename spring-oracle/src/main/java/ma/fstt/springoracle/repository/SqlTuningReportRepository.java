@@ -0,0 +1,13 @@
+package ma.fstt.springoracle.repository;
+
+import ma.fstt.springoracle.model.SqlTuningReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface SqlTuningReportRepository extends JpaRepository<SqlTuningReport, Long> {
+    // A null statistics timestamp is matched with IS NULL
+    Optional<SqlTuningReport> findFirstBySqlIdAndPlanHashValueAndStatsTimestampOrderByCreatedAtDesc(
+            String sqlId, Long planHashValue, LocalDateTime statsTimestamp);
+}
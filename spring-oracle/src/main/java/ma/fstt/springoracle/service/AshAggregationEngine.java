@@ -0,0 +1,262 @@
+package ma.fstt.springoracle.service;
+
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.dto.AshActivityBucketDTO;
+import ma.fstt.springoracle.dto.AshTopActivityDTO;
+import ma.fstt.springoracle.dto.AshTopEntryDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Top activity over any time range of the ASH window: top sql_id, event, wait class and session
+ * by sample count, plus average active sessions per time bucket.
+ * <p>
+ * String columns are dictionary references, so they are counted in plain long arrays indexed by
+ * reference; sessions go through a primitive int map. The row range is split into partitions
+ * counted in parallel and merged afterwards.
+ */
+@Component
+public class AshAggregationEngine {
+    // ASH keeps one sample per active session per second
+    private static final double ASH_SAMPLE_SECONDS = 1.0;
+    private static final int MIN_PARTITION_ROWS = 20_000;
+    private static final int MAX_BUCKETS = 10_000;
+
+    private final AshCollector ashCollector;
+    private final ExecutorService workers;
+    private final int parallelism;
+
+    @Autowired
+    public AshAggregationEngine(AshCollector ashCollector,
+                                @Value("${performance.ash.aggregation.parallelism:0}") int parallelism) {
+        this.ashCollector = ashCollector;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ash-aggregation-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public AshTopActivityDTO topActivity(LocalDateTime from, LocalDateTime to, int limit, int bucketSeconds) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("End of the range must be after its start");
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long fromMillis = from.atZone(zone).toInstant().toEpochMilli();
+        long toMillis = to.atZone(zone).toInstant().toEpochMilli();
+        // Whole seconds, and never more than MAX_BUCKETS buckets whatever the range
+        long minBucketSeconds = (toMillis - fromMillis + MAX_BUCKETS * 1000L - 1) / (MAX_BUCKETS * 1000L);
+        long bucketMillis = Math.max(Math.max(1, bucketSeconds), minBucketSeconds) * 1000L;
+        int bucketCount = (int) ((toMillis - fromMillis + bucketMillis - 1) / bucketMillis);
+
+        return ashCollector.window().read(reader -> {
+            int firstRow = reader.firstRowAtOrAfter(fromMillis);
+            int endRow = reader.firstRowAtOrAfter(toMillis);
+            Partial total = count(reader, firstRow, endRow, fromMillis, bucketMillis, bucketCount);
+
+            IntFunction<String> strings = reader::string;
+            List<AshActivityBucketDTO> activity = new ArrayList<>(bucketCount);
+            double bucketSamplesPerSession = bucketMillis / 1000.0 / ASH_SAMPLE_SECONDS;
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                activity.add(AshActivityBucketDTO.builder()
+                        .bucketStart(LocalDateTime.ofInstant(Instant.ofEpochMilli(fromMillis + bucket * bucketMillis), zone))
+                        .averageActiveSessions(total.bucketSamples[bucket] / bucketSamplesPerSession)
+                        .cpuActiveSessions(total.bucketCpuSamples[bucket] / bucketSamplesPerSession)
+                        .build());
+            }
+
+            return AshTopActivityDTO.builder()
+                    .from(from)
+                    .to(to)
+                    .totalSamples(total.samples)
+                    .bucketSeconds((int) (bucketMillis / 1000))
+                    .topSqlIds(top(total.sqlIds, limit, total.samples, ref -> strings.apply(ref)))
+                    .topEvents(top(total.events, limit, total.samples,
+                            ref -> ref == total.events.length - 1 ? "ON CPU" : strings.apply(ref)))
+                    .topWaitClasses(top(total.waitClasses, limit, total.samples,
+                            ref -> ref == total.waitClasses.length - 1 ? "CPU" : strings.apply(ref)))
+                    .topSessions(topSessions(total.sessions, limit, total.samples))
+                    .activity(activity)
+                    .build();
+        });
+    }
+
+    // Called with the window read lock held by the calling thread, which keeps the writer out
+    private Partial count(AshWindow.Reader reader, int firstRow, int endRow,
+                          long fromMillis, long bucketMillis, int bucketCount) {
+        int rows = endRow - firstRow;
+        int partitions = Math.max(1, Math.min(parallelism, rows / MIN_PARTITION_ROWS));
+        int dictionarySize = reader.dictionarySize();
+        if (partitions == 1) {
+            return countPartition(reader, firstRow, endRow, dictionarySize, fromMillis, bucketMillis, bucketCount);
+        }
+
+        List<Future<Partial>> futures = new ArrayList<>(partitions);
+        int step = (rows + partitions - 1) / partitions;
+        for (int start = firstRow; start < endRow; start += step) {
+            int from = start;
+            int to = Math.min(start + step, endRow);
+            futures.add(workers.submit(() ->
+                    countPartition(reader, from, to, dictionarySize, fromMillis, bucketMillis, bucketCount)));
+        }
+
+        Partial total = null;
+        try {
+            for (Future<Partial> future : futures) {
+                Partial partial = future.get();
+                if (total == null) {
+                    total = partial;
+                } else {
+                    total.merge(partial);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ASH aggregation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("ASH aggregation failed", e.getCause());
+        }
+        return total;
+    }
+
+    private static Partial countPartition(AshWindow.Reader reader, int from, int to, int dictionarySize,
+                                          long fromMillis, long bucketMillis, int bucketCount) {
+        Partial partial = new Partial(dictionarySize, bucketCount);
+        // The extra last slot counts rows without a value (NONE): CPU time for event and wait class
+        int noneSlot = dictionarySize;
+        for (int row = from; row < to; row++) {
+            int sqlId = reader.sqlIdRef(row);
+            if (sqlId != AshWindow.NONE) {
+                partial.sqlIds[sqlId]++;
+            }
+            int event = reader.eventRef(row);
+            partial.events[event == AshWindow.NONE ? noneSlot : event]++;
+            int waitClass = reader.waitClassRef(row);
+            partial.waitClasses[waitClass == AshWindow.NONE ? noneSlot : waitClass]++;
+            partial.sessions.add(reader.sessionId(row), 1);
+
+            int bucket = (int) ((reader.sampleTime(row) - fromMillis) / bucketMillis);
+            partial.bucketSamples[bucket]++;
+            if (reader.onCpu(row)) {
+                partial.bucketCpuSamples[bucket]++;
+            }
+            partial.samples++;
+        }
+        return partial;
+    }
+
+    private static List<AshTopEntryDTO> top(long[] counts, int limit, long total, IntFunction<String> keys) {
+        int[] best = topIndexes(counts.length, limit, i -> counts[i]);
+        List<AshTopEntryDTO> entries = new ArrayList<>(best.length);
+        for (int index : best) {
+            entries.add(entry(keys.apply(index), counts[index], total));
+        }
+        return entries;
+    }
+
+    private static List<AshTopEntryDTO> topSessions(IntLongHashMap sessions, int limit, long total) {
+        int[] ids = new int[sessions.size()];
+        long[] counts = new long[sessions.size()];
+        int[] next = {0};
+        sessions.forEach((key, value) -> {
+            ids[next[0]] = key;
+            counts[next[0]++] = value;
+        });
+        int[] best = topIndexes(ids.length, limit, i -> counts[i]);
+        List<AshTopEntryDTO> entries = new ArrayList<>(best.length);
+        for (int index : best) {
+            entries.add(entry(String.valueOf(ids[index]), counts[index], total));
+        }
+        return entries;
+    }
+
+    private interface Counts {
+        long get(int index);
+    }
+
+    // Indexes of the highest non-zero counts, highest first; limit is small so insertion is enough
+    private static int[] topIndexes(int length, int limit, Counts counts) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        int[] best = new int[limit];
+        int found = 0;
+        for (int i = 0; i < length; i++) {
+            long count = counts.get(i);
+            if (count == 0 || (found == best.length && count <= counts.get(best[found - 1]))) {
+                continue;
+            }
+            int position = found < best.length ? found++ : found - 1;
+            while (position > 0 && counts.get(best[position - 1]) < count) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = i;
+        }
+        int[] result = new int[found];
+        System.arraycopy(best, 0, result, 0, found);
+        return result;
+    }
+
+    private static AshTopEntryDTO entry(String key, long samples, long total) {
+        return AshTopEntryDTO.builder()
+                .key(key)
+                .samples(samples)
+                .percent(total > 0 ? Math.round(samples * 10000.0 / total) / 100.0 : 0)
+                .build();
+    }
+
+    private static final class Partial {
+        private final long[] sqlIds;
+        private final long[] events;
+        private final long[] waitClasses;
+        private final IntLongHashMap sessions = new IntLongHashMap(256);
+        private final long[] bucketSamples;
+        private final long[] bucketCpuSamples;
+        private long samples;
+
+        private Partial(int dictionarySize, int bucketCount) {
+            sqlIds = new long[dictionarySize];
+            events = new long[dictionarySize + 1];
+            waitClasses = new long[dictionarySize + 1];
+            bucketSamples = new long[bucketCount];
+            bucketCpuSamples = new long[bucketCount];
+        }
+
+        private void merge(Partial other) {
+            add(sqlIds, other.sqlIds);
+            add(events, other.events);
+            add(waitClasses, other.waitClasses);
+            add(bucketSamples, other.bucketSamples);
+            add(bucketCpuSamples, other.bucketCpuSamples);
+            other.sessions.forEach(sessions::add);
+            samples += other.samples;
+        }
+
+        private static void add(long[] target, long[] source) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] += source[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ma.fstt.springoracle.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incrementally copies v$active_session_history into an {@link AshWindow}.
+ * <p>
+ * The first poll loads the configured look-back period, every later poll only fetches rows
+ * with a sample_id above the last one seen, using a large fetch size. Lower sample_ids with a
+ * newer sample time are picked up as well, so collection resumes after an instance restart.
+ */
+@Component
+public class AshCollector {
+    private static final Logger logger = LoggerFactory.getLogger(AshCollector.class);
+
+    private static final String INITIAL_SQL = """
+            SELECT sample_id, sample_time, session_id, sql_id, event, wait_class,
+                   session_state, time_waited
+            FROM v$active_session_history
+            WHERE sample_time > SYSTIMESTAMP - NUMTODSINTERVAL(?, 'MINUTE')
+            ORDER BY sample_id
+            """;
+
+    private static final String INCREMENTAL_SQL = """
+            SELECT sample_id, sample_time, session_id, sql_id, event, wait_class,
+                   session_state, time_waited
+            FROM v$active_session_history
+            WHERE sample_id > ? OR (sample_id < ? AND sample_time > ?)
+            ORDER BY sample_id
+            """;
+
+    // Same local time semantics as sample_time, without the zone of SYSTIMESTAMP
+    private static final String DATABASE_TIME_SQL = "SELECT CAST(SYSTIMESTAMP AS TIMESTAMP) FROM dual";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AshWindow window;
+    private final int fetchSize;
+    private final int lookBackMinutes;
+    private final long pollIntervalMs;
+    private final AtomicLong rowsLoaded = new AtomicLong();
+
+    // Outcome of the latest successful poll, on the application clock
+    private volatile long lastPollMillis;
+    private volatile int lastPollRows;
+    // Database clock minus application clock, measured at each poll
+    private volatile long clockOffsetMillis;
+
+    @Autowired
+    public AshCollector(JdbcTemplate jdbcTemplate,
+                        @Value("${performance.ash.window.capacity:250000}") int capacity,
+                        @Value("${performance.ash.window.max-dictionary-size:50000}") int maxDictionarySize,
+                        @Value("${performance.ash.fetch-size:5000}") int fetchSize,
+                        @Value("${performance.ash.look-back-minutes:60}") int lookBackMinutes,
+                        @Value("${performance.ash.poll-interval-ms:10000}") long pollIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.window = new AshWindow(capacity, maxDictionarySize);
+        this.fetchSize = fetchSize;
+        this.lookBackMinutes = lookBackMinutes;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @Scheduled(fixedDelayString = "${performance.ash.poll-interval-ms:10000}")
+    public void scheduledPoll() {
+        try {
+            poll();
+        } catch (Exception e) {
+            logger.warn("ASH collection failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized int poll() {
+        long lastSampleId = window.lastSampleId();
+        boolean initial = lastSampleId == AshWindow.NONE;
+        int[] rows = {0};
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(initial ? INITIAL_SQL : INCREMENTAL_SQL);
+            ps.setFetchSize(fetchSize);
+            if (initial) {
+                ps.setInt(1, lookBackMinutes);
+            } else {
+                ps.setLong(1, lastSampleId);
+                ps.setLong(2, lastSampleId);
+                ps.setTimestamp(3, new Timestamp(window.lastSampleTime()));
+            }
+            return ps;
+        }, rs -> {
+            Timestamp sampleTime = rs.getTimestamp(2);
+            window.append(
+                    rs.getLong(1),
+                    sampleTime != null ? sampleTime.getTime() : 0,
+                    rs.getInt(3),
+                    rs.getString(4),
+                    rs.getString(5),
+                    rs.getString(6),
+                    "ON CPU".equals(rs.getString(7)),
+                    rs.getLong(8));
+            rows[0]++;
+        });
+
+        long requested = System.currentTimeMillis();
+        Timestamp databaseTime = jdbcTemplate.queryForObject(DATABASE_TIME_SQL, Timestamp.class);
+        if (databaseTime != null) {
+            clockOffsetMillis = databaseTime.getTime() - (requested + System.currentTimeMillis()) / 2;
+        }
+
+        rowsLoaded.addAndGet(rows[0]);
+        lastPollRows = rows[0];
+        lastPollMillis = System.currentTimeMillis();
+        return rows[0];
+    }
+
+    // ASH writes nothing while the instance is idle: new rows in a recent poll mean current activity
+    public boolean isActive() {
+        return lastPollRows > 0 && System.currentTimeMillis() - lastPollMillis <= 2 * pollIntervalMs;
+    }
+
+    // Current time on the database clock, comparable with the sample times of the window
+    public long databaseTimeMillis() {
+        return System.currentTimeMillis() + clockOffsetMillis;
+    }
+
+    public AshWindow window() {
+        return window;
+    }
+
+    public long rowsLoaded() {
+        return rowsLoaded.get();
+    }
+}
@@ -0,0 +1,212 @@
+package ma.fstt.springoracle.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory window of Active Session History rows stored column by column.
+ * <p>
+ * Numeric columns are primitive arrays used as a ring, string columns (sql_id, event,
+ * wait_class) hold references into an interned dictionary, so a row costs about 40 bytes.
+ * Rows are appended in sample_id order, which keeps sample times sorted and lets readers
+ * binary search a time range. One writer appends, readers work under a shared read lock.
+ */
+public class AshWindow {
+
+    public static final int NONE = -1;
+
+    private final int capacity;
+    private final int maxDictionarySize;
+    private final long[] sampleIds;
+    private final long[] sampleTimes;
+    private final int[] sessionIds;
+    private final int[] sqlIds;
+    private final int[] events;
+    private final int[] waitClasses;
+    private final boolean[] onCpu;
+    private final long[] timeWaited;
+
+    private Map<String, Integer> dictionaryIndex = new HashMap<>();
+    private List<String> dictionary = new ArrayList<>();
+
+    private int compactionThreshold;
+    private long appended;
+    private long lastSampleId = NONE;
+    private long lastSampleTime;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public AshWindow(int capacity, int maxDictionarySize) {
+        this.capacity = capacity;
+        this.maxDictionarySize = maxDictionarySize;
+        this.compactionThreshold = maxDictionarySize;
+        this.sampleIds = new long[capacity];
+        this.sampleTimes = new long[capacity];
+        this.sessionIds = new int[capacity];
+        this.sqlIds = new int[capacity];
+        this.events = new int[capacity];
+        this.waitClasses = new int[capacity];
+        this.onCpu = new boolean[capacity];
+        this.timeWaited = new long[capacity];
+    }
+
+    public void append(long sampleId, long sampleTimeMillis, int sessionId, String sqlId,
+                       String event, String waitClass, boolean cpu, long waited) {
+        lock.writeLock().lock();
+        try {
+            if (dictionary.size() >= compactionThreshold) {
+                compactDictionary();
+            }
+            int slot = (int) (appended % capacity);
+            sampleIds[slot] = sampleId;
+            sampleTimes[slot] = sampleTimeMillis;
+            sessionIds[slot] = sessionId;
+            sqlIds[slot] = intern(sqlId);
+            events[slot] = intern(event);
+            waitClasses[slot] = intern(waitClass);
+            onCpu[slot] = cpu;
+            timeWaited[slot] = waited;
+            appended++;
+            lastSampleId = sampleId;
+            lastSampleTime = sampleTimeMillis;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long lastSampleId() {
+        lock.readLock().lock();
+        try {
+            return lastSampleId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long lastSampleTime() {
+        lock.readLock().lock();
+        try {
+            return lastSampleTime;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Runs the function with a consistent view of the window
+    public <T> T read(Function<Reader, T> function) {
+        lock.readLock().lock();
+        try {
+            return function.apply(new Reader());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer ref = dictionaryIndex.get(value);
+        if (ref == null) {
+            ref = dictionary.size();
+            dictionary.add(value);
+            dictionaryIndex.put(value, ref);
+        }
+        return ref;
+    }
+
+    // Drops strings no longer referenced by any row still in the window (sql_ids churn over time)
+    private void compactDictionary() {
+        List<String> oldDictionary = dictionary;
+        dictionary = new ArrayList<>();
+        dictionaryIndex = new HashMap<>();
+        int size = (int) Math.min(appended, capacity);
+        for (int slot = 0; slot < size; slot++) {
+            sqlIds[slot] = remap(oldDictionary, sqlIds[slot]);
+            events[slot] = remap(oldDictionary, events[slot]);
+            waitClasses[slot] = remap(oldDictionary, waitClasses[slot]);
+        }
+        // If the live rows really need that many strings, back off instead of compacting on every append
+        compactionThreshold = Math.max(maxDictionarySize, dictionary.size() * 2);
+    }
+
+    private int remap(List<String> oldDictionary, int ref) {
+        return ref == NONE ? NONE : intern(oldDictionary.get(ref));
+    }
+
+    /**
+     * Read access to the window, addressed by logical row index from 0 (oldest) to size() - 1.
+     * Only valid inside {@link #read(Function)}.
+     */
+    public final class Reader {
+
+        private final long first = Math.max(0, appended - capacity);
+        private final int size = (int) (appended - first);
+
+        public int size() {
+            return size;
+        }
+
+        private int slot(int row) {
+            return (int) ((first + row) % capacity);
+        }
+
+        public long sampleId(int row) {
+            return sampleIds[slot(row)];
+        }
+
+        public long sampleTime(int row) {
+            return sampleTimes[slot(row)];
+        }
+
+        public int sessionId(int row) {
+            return sessionIds[slot(row)];
+        }
+
+        public int sqlIdRef(int row) {
+            return sqlIds[slot(row)];
+        }
+
+        public int eventRef(int row) {
+            return events[slot(row)];
+        }
+
+        public int waitClassRef(int row) {
+            return waitClasses[slot(row)];
+        }
+
+        public boolean onCpu(int row) {
+            return onCpu[slot(row)];
+        }
+
+        public long timeWaited(int row) {
+            return timeWaited[slot(row)];
+        }
+
+        public int dictionarySize() {
+            return dictionary.size();
+        }
+
+        public String string(int ref) {
+            return ref == NONE ? null : dictionary.get(ref);
+        }
+
+        // First row whose sample time is >= the given time, size() when there is none
+        public int firstRowAtOrAfter(long timeMillis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sampleTime(mid) < timeMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package ma.fstt.springoracle.service;
+
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.dto.AwrDiffEntryDTO;
+import ma.fstt.springoracle.dto.AwrDiffReportDTO;
+import ma.fstt.springoracle.dto.AwrPeriodDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Period-over-period AWR comparison ("what changed after the release").
+ * <p>
+ * Each side is a snapshot range (begin, end] summarised into load profile totals, non-idle wait
+ * event totals and per-sql_id totals, normalised per second and per transaction. Both sides are
+ * loaded in parallel; load profile deltas come from the AwrEngine snapshot cache and the wait
+ * event and SQL totals of a range are kept in a small LRU, so repeating a comparison only
+ * recomputes the ranking.
+ */
+@Component
+public class AwrDiffEngine {
+    private static final double MICROS = 1_000_000.0;
+
+    private static final String WAIT_EVENTS_SQL = """
+            SELECT event_name, MAX(wait_class) AS wait_class,
+                   SUM(waits) AS waits, SUM(time_waited_micro) AS time_waited_micro
+            FROM (
+                SELECT e.snap_id, e.event_name, e.wait_class,
+                       e.total_waits - LAG(e.total_waits) OVER (PARTITION BY e.event_id ORDER BY e.snap_id) AS waits,
+                       e.time_waited_micro - LAG(e.time_waited_micro) OVER (PARTITION BY e.event_id ORDER BY e.snap_id) AS time_waited_micro,
+                       LAG(e.snap_id) OVER (PARTITION BY e.event_id ORDER BY e.snap_id) AS previous_snap_id,
+                       LAG(s.startup_time) OVER (PARTITION BY e.event_id ORDER BY e.snap_id) AS previous_startup,
+                       s.startup_time
+                FROM dba_hist_system_event e
+                JOIN dba_hist_snapshot s
+                  ON s.snap_id = e.snap_id AND s.dbid = e.dbid AND s.instance_number = e.instance_number
+                WHERE e.dbid = :dbid AND e.instance_number = :instance
+                AND e.snap_id BETWEEN :low AND :high AND e.wait_class <> 'Idle'
+            )
+            WHERE snap_id > :low AND previous_snap_id = snap_id - 1 AND previous_startup = startup_time
+            AND time_waited_micro >= 0
+            GROUP BY event_name
+            """;
+
+    private static final String TOP_SQL_SQL = """
+            SELECT sql_id, MAX(module) AS module,
+                   SUM(elapsed_time_delta) AS elapsed_time,
+                   SUM(cpu_time_delta) AS cpu_time,
+                   SUM(executions_delta) AS executions
+            FROM dba_hist_sqlstat
+            WHERE dbid = :dbid AND instance_number = :instance
+            AND snap_id > :low AND snap_id <= :high
+            GROUP BY sql_id
+            """;
+
+    private record Totals(String detail, double primary, double secondary) {
+    }
+
+    private record Period(AwrPeriodDTO info, double[] loadProfile,
+                          Map<String, Totals> waitEvents, Map<String, Totals> sqlStats) {
+    }
+
+    private final AwrEngine awrEngine;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ExecutorService workers;
+    private final Map<String, Period> periodCache;
+
+    @Autowired
+    public AwrDiffEngine(AwrEngine awrEngine, JdbcTemplate jdbcTemplate,
+                         @Value("${performance.awr.diff.cache-size:32}") int cacheSize) {
+        this.awrEngine = awrEngine;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.periodCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Period> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "awr-diff-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public AwrDiffReportDTO compare(long baseBegin, long baseEnd, long compareBegin, long compareEnd, int limit) {
+        if (baseEnd <= baseBegin || compareEnd <= compareBegin) {
+            throw new IllegalArgumentException("End snapshot must be after begin snapshot");
+        }
+        Period baseline;
+        Period comparison;
+        try {
+            Future<Period> baselineFuture = workers.submit(() -> period(baseBegin, baseEnd));
+            Future<Period> comparisonFuture = workers.submit(() -> period(compareBegin, compareEnd));
+            baseline = baselineFuture.get();
+            comparison = comparisonFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("AWR comparison interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                throw invalid;
+            }
+            throw new IllegalStateException("AWR comparison failed", e.getCause());
+        }
+
+        List<AwrDiffEntryDTO> loadProfile = new ArrayList<>();
+        List<String> statNames = awrEngine.getStatNames();
+        for (int i = 0; i < statNames.size(); i++) {
+            String name = awrEngine.isTimeModel(i) ? statNames.get(i) + " (s)" : statNames.get(i);
+            loadProfile.add(entry(name, null, baseline.loadProfile()[i], comparison.loadProfile()[i],
+                    baseline.info(), comparison.info()));
+        }
+        // Relative growth ranks the load profile, whose statistics have unrelated units
+        loadProfile.sort(Comparator.comparing(AwrDiffEntryDTO::getChangePercent,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+
+        return AwrDiffReportDTO.builder()
+                .baseline(baseline.info())
+                .comparison(comparison.info())
+                .loadProfile(loadProfile)
+                .waitEvents(rank(baseline.waitEvents(), comparison.waitEvents(), baseline.info(), comparison.info(), limit))
+                .topSql(rank(baseline.sqlStats(), comparison.sqlStats(), baseline.info(), comparison.info(), limit))
+                .build();
+    }
+
+    public int getCachedPeriods() {
+        return periodCache.size();
+    }
+
+    private Period period(long begin, long end) {
+        String key = begin + ":" + end;
+        Period cached = periodCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<AwrSnapshotDelta> snapshots = awrEngine.getSnapshotRangeDeltas(begin, end);
+        if (snapshots.isEmpty()) {
+            throw new IllegalArgumentException("No AWR snapshots between " + begin + " and " + end);
+        }
+        int statCount = awrEngine.getStatNames().size();
+        double[] totals = new double[statCount];
+        double elapsed = 0;
+        boolean restarted = false;
+        for (AwrSnapshotDelta snapshot : snapshots) {
+            elapsed += snapshot.getElapsedSeconds();
+            restarted |= snapshot.isInstanceRestarted();
+            for (int i = 0; i < statCount; i++) {
+                double delta = snapshot.delta(i);
+                if (!Double.isNaN(delta)) {
+                    totals[i] += awrEngine.isTimeModel(i) ? delta / MICROS : delta;
+                }
+            }
+        }
+
+        AwrSnapshotDelta first = snapshots.get(0);
+        AwrSnapshotDelta last = snapshots.get(snapshots.size() - 1);
+        AwrPeriodDTO info = AwrPeriodDTO.builder()
+                .beginSnapId(first.getSnapId() - 1)
+                .endSnapId(last.getSnapId())
+                .beginTime(first.getBeginIntervalTime())
+                .endTime(last.getEndIntervalTime())
+                .elapsedSeconds(elapsed)
+                .transactions(total(totals, "user commits") + total(totals, "user rollbacks"))
+                .dbTimeSeconds(total(totals, "DB time"))
+                .instanceRestarted(restarted)
+                .build();
+
+        MapSqlParameterSource params = awrEngine.instanceParams()
+                .addValue("low", begin)
+                .addValue("high", end);
+        Map<String, Totals> waitEvents = new HashMap<>();
+        namedJdbcTemplate.query(WAIT_EVENTS_SQL, params, rs -> {
+            waitEvents.put(rs.getString("event_name"), new Totals(rs.getString("wait_class"),
+                    rs.getDouble("time_waited_micro") / MICROS, rs.getDouble("waits")));
+        });
+        Map<String, Totals> sqlStats = new HashMap<>();
+        namedJdbcTemplate.query(TOP_SQL_SQL, params, rs -> {
+            sqlStats.put(rs.getString("sql_id"), new Totals(rs.getString("module"),
+                    rs.getDouble("elapsed_time") / MICROS, rs.getDouble("executions")));
+        });
+
+        Period period = new Period(info, totals, waitEvents, sqlStats);
+        // A range reaching past the newest snapshot would grow once AWR catches up, so only full ranges are kept
+        if (first.getSnapId() == begin + 1 && last.getSnapId() == end) {
+            periodCache.put(key, period);
+        }
+        return period;
+    }
+
+    private double total(double[] totals, String statName) {
+        int index = awrEngine.indexOf(statName);
+        return index >= 0 ? totals[index] : Double.NaN;
+    }
+
+    // Time-based sections rank by absolute growth of time spent per second
+    private List<AwrDiffEntryDTO> rank(Map<String, Totals> baseline, Map<String, Totals> comparison,
+                                       AwrPeriodDTO baselineInfo, AwrPeriodDTO comparisonInfo, int limit) {
+        Set<String> keys = new HashSet<>(baseline.keySet());
+        keys.addAll(comparison.keySet());
+        List<AwrDiffEntryDTO> entries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Totals before = baseline.get(key);
+            Totals after = comparison.get(key);
+            String detail = after != null ? after.detail() : before.detail();
+            entries.add(entry(key, detail, before != null ? before.primary() : 0, after != null ? after.primary() : 0,
+                    baselineInfo, comparisonInfo));
+        }
+        entries.sort(Comparator.comparing(AwrDiffEntryDTO::getChangePerSecond,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    private static AwrDiffEntryDTO entry(String name, String detail, double before, double after,
+                                         AwrPeriodDTO baselineInfo, AwrPeriodDTO comparisonInfo) {
+        Double beforePerSecond = ratio(before, baselineInfo.getElapsedSeconds());
+        Double afterPerSecond = ratio(after, comparisonInfo.getElapsedSeconds());
+        Double change = beforePerSecond != null && afterPerSecond != null ? afterPerSecond - beforePerSecond : null;
+        return AwrDiffEntryDTO.builder()
+                .name(name)
+                .detail(detail)
+                .baselinePerSecond(beforePerSecond)
+                .comparisonPerSecond(afterPerSecond)
+                .baselinePerTransaction(ratio(before, baselineInfo.getTransactions()))
+                .comparisonPerTransaction(ratio(after, comparisonInfo.getTransactions()))
+                .changePerSecond(change)
+                .changePercent(change != null && beforePerSecond != 0 ? change / beforePerSecond * 100 : null)
+                .build();
+    }
+
+    private static Double ratio(double value, double divisor) {
+        double result = value / divisor;
+        return Double.isFinite(result) ? result : null;
+    }
+}
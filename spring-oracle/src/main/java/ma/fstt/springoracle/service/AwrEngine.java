@@ -0,0 +1,300 @@
+package ma.fstt.springoracle.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-snapshot AWR deltas computed from dba_hist_sysstat and dba_hist_sys_time_model.
+ * <p>
+ * All deltas of a snapshot range come from one set-based query using LAG over the snapshot
+ * order. Closed snapshots never change, so every computed snapshot is cached for the life of
+ * the application, as is the snapshot catalog. A report over a range that is already known
+ * does not touch the database at all; only ranges reaching past the newest known snapshot
+ * refresh the catalog.
+ */
+@Component
+public class AwrEngine {
+    private static final Logger logger = LoggerFactory.getLogger(AwrEngine.class);
+
+    private static final String CATALOG_SQL = """
+            SELECT snap_id, begin_interval_time, end_interval_time
+            FROM dba_hist_snapshot
+            WHERE dbid = :dbid AND instance_number = :instance AND snap_id > :after
+            ORDER BY snap_id
+            """;
+
+    private static final String DELTA_SQL = """
+            WITH snaps AS (
+                SELECT snap_id, begin_interval_time, end_interval_time, startup_time
+                FROM dba_hist_snapshot
+                WHERE dbid = :dbid AND instance_number = :instance
+                AND snap_id BETWEEN :low AND :high
+            ),
+            stats AS (
+                SELECT snap_id, 'S' AS kind, stat_name, value
+                FROM dba_hist_sysstat
+                WHERE dbid = :dbid AND instance_number = :instance
+                AND snap_id BETWEEN :low AND :high AND stat_name IN (:sysstat)
+                UNION ALL
+                SELECT snap_id, 'T', stat_name, value
+                FROM dba_hist_sys_time_model
+                WHERE dbid = :dbid AND instance_number = :instance
+                AND snap_id BETWEEN :low AND :high AND stat_name IN (:timeModel)
+                UNION ALL
+                SELECT snap_id, 'C', stat_name, value
+                FROM dba_hist_osstat
+                WHERE dbid = :dbid AND instance_number = :instance
+                AND snap_id BETWEEN :low AND :high AND stat_name = 'NUM_CPUS'
+                UNION ALL
+                SELECT snap_id, 'G', 'sga bytes', SUM(bytes)
+                FROM dba_hist_sgastat
+                WHERE dbid = :dbid AND instance_number = :instance
+                AND snap_id BETWEEN :low AND :high
+                GROUP BY snap_id
+            ),
+            deltas AS (
+                SELECT st.snap_id, st.kind, st.stat_name, st.value,
+                       st.value - LAG(st.value) OVER (PARTITION BY st.kind, st.stat_name ORDER BY st.snap_id) AS delta,
+                       LAG(st.snap_id) OVER (PARTITION BY st.kind, st.stat_name ORDER BY st.snap_id) AS previous_snap_id,
+                       LAG(s.startup_time) OVER (PARTITION BY st.kind, st.stat_name ORDER BY st.snap_id) AS previous_startup,
+                       s.startup_time, s.begin_interval_time, s.end_interval_time
+                FROM stats st
+                JOIN snaps s ON s.snap_id = st.snap_id
+            )
+            SELECT snap_id, begin_interval_time, end_interval_time, kind, stat_name, value, delta,
+                   CASE WHEN previous_startup = startup_time AND previous_snap_id = snap_id - 1
+                        THEN 0 ELSE 1 END AS reset
+            FROM deltas
+            WHERE snap_id > :low
+            ORDER BY snap_id
+            """;
+
+    private record SnapshotInfo(long snapId, LocalDateTime begin, LocalDateTime end) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final List<String> sysstatNames;
+    private final List<String> timeModelNames;
+    private final List<String> statNames;
+    private final Map<String, Integer> sysstatIndexes = new HashMap<>();
+    private final Map<String, Integer> timeModelIndexes = new HashMap<>();
+
+    private final NavigableMap<Long, SnapshotInfo> catalog = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, AwrSnapshotDelta> deltaCache = new ConcurrentSkipListMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private volatile long dbid = -1;
+    private volatile int instanceNumber;
+
+    @Autowired
+    public AwrEngine(JdbcTemplate jdbcTemplate,
+                     @Value("${performance.awr.sysstat}") String[] sysstat,
+                     @Value("${performance.awr.time-model}") String[] timeModel) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        List<String> names = new ArrayList<>();
+        List<String> sysstatList = new ArrayList<>();
+        List<String> timeModelList = new ArrayList<>();
+        for (String name : sysstat) {
+            sysstatIndexes.put(name.trim(), names.size());
+            sysstatList.add(name.trim());
+            names.add(name.trim());
+        }
+        for (String name : timeModel) {
+            timeModelIndexes.put(name.trim(), names.size());
+            timeModelList.add(name.trim());
+            names.add(name.trim());
+        }
+        this.sysstatNames = Collections.unmodifiableList(sysstatList);
+        this.timeModelNames = Collections.unmodifiableList(timeModelList);
+        this.statNames = Collections.unmodifiableList(names);
+    }
+
+    public List<String> getStatNames() {
+        return statNames;
+    }
+
+    public int indexOf(String statName) {
+        return statNames.indexOf(statName);
+    }
+
+    // Time model statistics are in microseconds, the others are counts
+    public boolean isTimeModel(int index) {
+        return index >= sysstatNames.size();
+    }
+
+    // Snapshots whose interval begins inside [start, end]
+    public List<AwrSnapshotDelta> getDeltas(LocalDateTime start, LocalDateTime end) {
+        refreshCatalogIfNeeded(end);
+        List<Long> snapIds = new ArrayList<>();
+        for (SnapshotInfo info : catalog.values()) {
+            if (!info.begin().isBefore(start) && !info.begin().isAfter(end)) {
+                snapIds.add(info.snapId());
+            }
+        }
+        return snapIds.isEmpty() ? List.of() : getDeltas(snapIds.get(0), snapIds.get(snapIds.size() - 1));
+    }
+
+    // Snapshots with beginSnap < snap_id <= endSnap, the usual AWR report convention
+    public List<AwrSnapshotDelta> getSnapshotRangeDeltas(long beginSnap, long endSnap) {
+        return getDeltas(beginSnap + 1, endSnap);
+    }
+
+    public List<AwrSnapshotDelta> getDeltas(long firstSnap, long lastSnap) {
+        if (lastSnap < firstSnap) {
+            return List.of();
+        }
+        if (!catalog.containsKey(lastSnap)) {
+            refreshCatalog();
+        }
+        long missingFrom = -1;
+        long missingTo = -1;
+        for (Long snapId : catalog.subMap(firstSnap, true, lastSnap, true).keySet()) {
+            if (!deltaCache.containsKey(snapId)) {
+                missingFrom = missingFrom < 0 ? snapId : missingFrom;
+                missingTo = snapId;
+            }
+        }
+        if (missingFrom < 0) {
+            cacheHits.incrementAndGet();
+        } else {
+            cacheMisses.incrementAndGet();
+            loadDeltas(missingFrom, missingTo);
+        }
+        return new ArrayList<>(deltaCache.subMap(firstSnap, true, lastSnap, true).values());
+    }
+
+    public Map<String, Long> getCacheStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", cacheHits.get());
+        stats.put("misses", cacheMisses.get());
+        stats.put("cachedSnapshots", (long) deltaCache.size());
+        stats.put("knownSnapshots", (long) catalog.size());
+        return stats;
+    }
+
+    private void refreshCatalogIfNeeded(LocalDateTime end) {
+        Map.Entry<Long, SnapshotInfo> newest = catalog.lastEntry();
+        if (newest == null || newest.getValue().end().isBefore(end)) {
+            refreshCatalog();
+        }
+    }
+
+    private synchronized void refreshCatalog() {
+        resolveInstance();
+        MapSqlParameterSource params = instanceParams()
+                .addValue("after", catalog.isEmpty() ? -1 : catalog.lastKey());
+        namedJdbcTemplate.query(CATALOG_SQL, params, rs -> {
+            long snapId = rs.getLong("snap_id");
+            catalog.put(snapId, new SnapshotInfo(snapId,
+                    rs.getTimestamp("begin_interval_time").toLocalDateTime(),
+                    rs.getTimestamp("end_interval_time").toLocalDateTime()));
+        });
+    }
+
+    // Not synchronized: ranges of both sides of a diff load concurrently, and a duplicate load
+    // of the same snapshot produces an identical, immutable result
+    private void loadDeltas(long firstSnap, long lastSnap) {
+        MapSqlParameterSource params = instanceParams()
+                .addValue("low", firstSnap - 1)
+                .addValue("high", lastSnap)
+                .addValue("sysstat", sysstatNames.isEmpty() ? List.of("") : sysstatNames)
+                .addValue("timeModel", timeModelNames.isEmpty() ? List.of("") : timeModelNames);
+
+        Map<Long, SnapshotBuilder> builders = new LinkedHashMap<>();
+        namedJdbcTemplate.query(DELTA_SQL, params, rs -> {
+            long snapId = rs.getLong("snap_id");
+            SnapshotBuilder builder = builders.get(snapId);
+            if (builder == null) {
+                builder = new SnapshotBuilder(snapId,
+                        rs.getTimestamp("begin_interval_time"),
+                        rs.getTimestamp("end_interval_time"),
+                        statNames.size());
+                builders.put(snapId, builder);
+            }
+            String kind = rs.getString("kind");
+            String name = rs.getString("stat_name");
+            double delta = rs.getDouble("delta");
+            boolean valid = !rs.wasNull() && rs.getInt("reset") == 0 && delta >= 0;
+            switch (kind) {
+                case "S" -> builder.set(sysstatIndexes.get(name), valid ? delta : Double.NaN, !valid);
+                case "T" -> builder.set(timeModelIndexes.get(name), valid ? delta : Double.NaN, !valid);
+                case "C" -> builder.cpuCount = rs.getDouble("value");
+                case "G" -> builder.sgaBytes = rs.getDouble("value");
+                default -> { }
+            }
+        });
+
+        for (SnapshotBuilder builder : builders.values()) {
+            deltaCache.put(builder.snapId, builder.build());
+        }
+        logger.debug("Loaded AWR deltas for snapshots " + firstSnap + " to " + lastSnap);
+    }
+
+    private void resolveInstance() {
+        if (dbid < 0) {
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "SELECT d.dbid, i.instance_number FROM v$database d, v$instance i");
+            instanceNumber = ((Number) row.get("INSTANCE_NUMBER")).intValue();
+            dbid = ((Number) row.get("DBID")).longValue();
+        }
+    }
+
+    MapSqlParameterSource instanceParams() {
+        resolveInstance();
+        return new MapSqlParameterSource()
+                .addValue("dbid", dbid)
+                .addValue("instance", instanceNumber);
+    }
+
+    private static final class SnapshotBuilder {
+        private final long snapId;
+        private final LocalDateTime begin;
+        private final LocalDateTime end;
+        private final double[] deltas;
+        private boolean reset;
+        private double cpuCount = Double.NaN;
+        private double sgaBytes = Double.NaN;
+
+        private SnapshotBuilder(long snapId, Timestamp begin, Timestamp end, int statCount) {
+            this.snapId = snapId;
+            this.begin = begin.toLocalDateTime();
+            this.end = end.toLocalDateTime();
+            this.deltas = new double[statCount];
+            Arrays.fill(deltas, Double.NaN);
+        }
+
+        private void set(Integer index, double delta, boolean resetDetected) {
+            if (index != null) {
+                deltas[index] = delta;
+            }
+            reset |= resetDetected;
+        }
+
+        private AwrSnapshotDelta build() {
+            double elapsed = Duration.between(begin, end).toMillis() / 1000.0;
+            return new AwrSnapshotDelta(snapId, begin, end, elapsed, reset, deltas, cpuCount, sgaBytes);
+        }
+    }
+}
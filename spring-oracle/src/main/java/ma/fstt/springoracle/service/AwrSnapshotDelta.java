@@ -0,0 +1,70 @@
+package ma.fstt.springoracle.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Activity of one closed AWR snapshot interval: the change of every tracked statistic since
+ * the previous snapshot, plus the point-in-time values (CPU count, SGA size) at its end.
+ * Deltas are NaN when the instance restarted inside the interval or the previous snapshot is
+ * missing. Instances are immutable, which is what makes them safe to cache forever.
+ */
+public final class AwrSnapshotDelta {
+    private final long snapId;
+    private final LocalDateTime beginIntervalTime;
+    private final LocalDateTime endIntervalTime;
+    private final double elapsedSeconds;
+    private final boolean instanceRestarted;
+    private final double[] deltas;
+    private final double cpuCount;
+    private final double sgaBytes;
+
+    AwrSnapshotDelta(long snapId, LocalDateTime beginIntervalTime, LocalDateTime endIntervalTime,
+                     double elapsedSeconds, boolean instanceRestarted, double[] deltas,
+                     double cpuCount, double sgaBytes) {
+        this.snapId = snapId;
+        this.beginIntervalTime = beginIntervalTime;
+        this.endIntervalTime = endIntervalTime;
+        this.elapsedSeconds = elapsedSeconds;
+        this.instanceRestarted = instanceRestarted;
+        this.deltas = deltas;
+        this.cpuCount = cpuCount;
+        this.sgaBytes = sgaBytes;
+    }
+
+    public long getSnapId() {
+        return snapId;
+    }
+
+    public LocalDateTime getBeginIntervalTime() {
+        return beginIntervalTime;
+    }
+
+    public LocalDateTime getEndIntervalTime() {
+        return endIntervalTime;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public boolean isInstanceRestarted() {
+        return instanceRestarted;
+    }
+
+    public double getCpuCount() {
+        return cpuCount;
+    }
+
+    public double getSgaBytes() {
+        return sgaBytes;
+    }
+
+    // Delta of the statistic at the given index of AwrEngine#getStatNames(), NaN when unknown
+    public double delta(int index) {
+        return index >= 0 && index < deltas.length ? deltas[index] : Double.NaN;
+    }
+
+    public double perSecond(int index) {
+        return elapsedSeconds > 0 ? delta(index) / elapsedSeconds : Double.NaN;
+    }
+}
@@ -0,0 +1,121 @@
+package ma.fstt.springoracle.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns cumulative instance counters (v$sysstat, v$sys_time_model) into per-second rates
+ * between two consecutive samples.
+ * <p>
+ * Counters are addressed by a fixed index assigned at construction time, raw values and
+ * rates live in primitive arrays. A rate is NaN when it cannot be computed: first sample,
+ * statistic missing from the result set, or a counter reset (instance restart or a value
+ * going backwards). The engine simply rebases on the new value in those cases.
+ */
+public class CounterDeltaEngine {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final double[] previous;
+    private final double[] rates;
+
+    private boolean primed;
+    private long previousNanos;
+    private double previousStartup = Double.NaN;
+    private volatile Rates latest;
+
+    public CounterDeltaEngine(List<String> counterNames) {
+        this.names = counterNames.toArray(new String[0]);
+        for (int i = 0; i < names.length; i++) {
+            indexes.putIfAbsent(names[i], i);
+        }
+        this.previous = new double[names.length];
+        this.rates = new double[names.length];
+        Arrays.fill(previous, Double.NaN);
+        Arrays.fill(rates, Double.NaN);
+        this.latest = new Rates(names, rates.clone(), 0, false);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    // Returns -1 when the counter is not tracked
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @param raw         current counter values, aligned with the configured names (NaN when not returned)
+     * @param sampleNanos monotonic time of the sample, from System.nanoTime()
+     * @param startup     instance startup marker, a different value means every counter was reset
+     */
+    public synchronized Rates update(double[] raw, long sampleNanos, double startup) {
+        if (raw.length != names.length) {
+            throw new IllegalArgumentException("Expected " + names.length + " counter values, got " + raw.length);
+        }
+        boolean restarted = primed && Double.compare(startup, previousStartup) != 0;
+        double seconds = primed ? (sampleNanos - previousNanos) / 1_000_000_000.0 : 0;
+        boolean usable = primed && !restarted && seconds > 0;
+
+        for (int i = 0; i < raw.length; i++) {
+            double current = raw[i];
+            double delta = current - previous[i];
+            // NaN on either side propagates into delta, which fails the check below
+            rates[i] = usable && delta >= 0 ? delta / seconds : Double.NaN;
+            previous[i] = current;
+        }
+
+        previousNanos = sampleNanos;
+        previousStartup = startup;
+        primed = true;
+        latest = new Rates(names, rates.clone(), seconds, restarted);
+        return latest;
+    }
+
+    public Rates latest() {
+        return latest;
+    }
+
+    /**
+     * Immutable view of the rates computed by one update.
+     */
+    public static final class Rates {
+        private final String[] names;
+        private final double[] values;
+        private final double intervalSeconds;
+        private final boolean instanceRestarted;
+
+        private Rates(String[] names, double[] values, double intervalSeconds, boolean instanceRestarted) {
+            this.names = names;
+            this.values = values;
+            this.intervalSeconds = intervalSeconds;
+            this.instanceRestarted = instanceRestarted;
+        }
+
+        public double get(int index) {
+            return index >= 0 ? values[index] : Double.NaN;
+        }
+
+        public double intervalSeconds() {
+            return intervalSeconds;
+        }
+
+        public boolean instanceRestarted() {
+            return instanceRestarted;
+        }
+
+        // Boxes the values, meant for the REST layer only; NaN rates become null
+        public Map<String, Double> toMap() {
+            Map<String, Double> map = new LinkedHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                map.put(names[i], Double.isNaN(values[i]) ? null : values[i]);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ma.fstt.springoracle.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cached answers to the data dictionary lookups done before every grant and revoke: does a
+ * user, an object or a system privilege exist, and which system privileges are granted.
+ * <p>
+ * Each lookup has a bounded LRU with a time-to-live. Entries are invalidated explicitly when
+ * the application's own DDL changes the answer (CREATE/DROP USER, GRANT, REVOKE); changes
+ * made outside the application are picked up when the entry expires. Lookups that fail are
+ * not cached.
+ */
+@Component
+public class DictionaryCache implements MeterBinder {
+    private static final String ALL = "*";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Lookup<String, Boolean> users;
+    private final Lookup<String, Boolean> objects;
+    private final Lookup<String, Boolean> systemPrivileges;
+    private final Lookup<String, Set<String>> grantedSystemPrivileges;
+
+    @Autowired
+    public DictionaryCache(JdbcTemplate jdbcTemplate,
+                           @Value("${performance.dictionary-cache.max-entries:10000}") int maxEntries,
+                           @Value("${performance.dictionary-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        long ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.users = new Lookup<>("users", maxEntries, ttlNanos);
+        this.objects = new Lookup<>("objects", maxEntries, ttlNanos);
+        this.systemPrivileges = new Lookup<>("systemPrivileges", maxEntries, ttlNanos);
+        this.grantedSystemPrivileges = new Lookup<>("grantedSystemPrivileges", 1, ttlNanos);
+    }
+
+    public boolean userExists(String userName) {
+        return users.get(userName.toUpperCase(), name -> count(
+                "SELECT COUNT(*) FROM all_users WHERE username = ?", name));
+    }
+
+    public boolean objectExists(String objectName) {
+        return objects.get(objectName.toUpperCase(), name -> count(
+                "SELECT COUNT(*) FROM all_objects WHERE object_name = ? AND ROWNUM = 1", name));
+    }
+
+    public boolean systemPrivilegeExists(String privilegeName) {
+        return systemPrivileges.get(privilegeName.toUpperCase(), name -> count(
+                "SELECT COUNT(*) FROM system_privilege_map WHERE name = ?", name));
+    }
+
+    // DISTINCT privileges of DBA_SYS_PRIVS, loaded as one set instead of once per call
+    public Set<String> grantedSystemPrivileges() {
+        return grantedSystemPrivileges.get(ALL, key -> Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT DISTINCT PRIVILEGE FROM DBA_SYS_PRIVS", String.class)));
+    }
+
+    public void invalidateUser(String userName) {
+        users.invalidate(userName.toUpperCase());
+    }
+
+    // DROP USER ... CASCADE removes objects we cannot enumerate cheaply
+    public void invalidateObjects() {
+        objects.invalidateAll();
+    }
+
+    public void invalidateGrants() {
+        grantedSystemPrivileges.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+        objects.invalidateAll();
+        systemPrivileges.invalidateAll();
+        grantedSystemPrivileges.invalidateAll();
+    }
+
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (Lookup<?, ?> lookup : List.of(users, objects, systemPrivileges, grantedSystemPrivileges)) {
+            stats.put(lookup.name, lookup.stats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Lookup<?, ?> lookup : List.of(users, objects, systemPrivileges, grantedSystemPrivileges)) {
+            FunctionCounter.builder("oracle.dictionary.cache.hits", lookup, l -> l.hits.get())
+                    .tag("cache", lookup.name)
+                    .register(registry);
+            FunctionCounter.builder("oracle.dictionary.cache.misses", lookup, l -> l.misses.get())
+                    .tag("cache", lookup.name)
+                    .register(registry);
+            Gauge.builder("oracle.dictionary.cache.size", lookup, Lookup::size)
+                    .tag("cache", lookup.name)
+                    .register(registry);
+        }
+    }
+
+    private boolean count(String sql, String name) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, name);
+        return count != null && count > 0;
+    }
+
+    private static final class Lookup<K, V> {
+        private final String name;
+        private final long ttlNanos;
+        private final LinkedHashMap<K, Entry<V>> entries;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        // Bumped on invalidation so a load that raced with it is not cached
+        private long generation;
+
+        private record Entry<V>(V value, long expiresAt) {
+        }
+
+        private Lookup(String name, int maxEntries, long ttlNanos) {
+            this.name = name;
+            this.ttlNanos = ttlNanos;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    boolean evict = size() > maxEntries;
+                    if (evict) {
+                        evictions.incrementAndGet();
+                    }
+                    return evict;
+                }
+            };
+        }
+
+        // The loader runs outside the lock, so a slow dictionary query never blocks other keys
+        private V get(K key, Function<K, V> loader) {
+            long loadGeneration;
+            synchronized (this) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                    hits.incrementAndGet();
+                    return entry.value();
+                }
+                loadGeneration = generation;
+            }
+            misses.incrementAndGet();
+            V value = loader.apply(key);
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                }
+            }
+            return value;
+        }
+
+        private synchronized void invalidate(K key) {
+            generation++;
+            entries.remove(key);
+        }
+
+        private synchronized void invalidateAll() {
+            generation++;
+            entries.clear();
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+
+        private Map<String, Long> stats() {
+            long hitCount = hits.get();
+            long missCount = misses.get();
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("hits", hitCount);
+            stats.put("misses", missCount);
+            stats.put("evictions", evictions.get());
+            stats.put("size", (long) size());
+            stats.put("hitRatePercent", hitCount + missCount > 0 ? hitCount * 100 / (hitCount + missCount) : 0);
+            return stats;
+        }
+    }
+}
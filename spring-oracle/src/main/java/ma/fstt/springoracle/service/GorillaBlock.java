@@ -0,0 +1,247 @@
+package ma.fstt.springoracle.service;
+
+import java.util.Arrays;
+
+/**
+ * A block of multi-column samples compressed the way Facebook's Gorilla does it: timestamps
+ * as delta-of-delta with variable-length prefixes, values as the XOR with the previous value
+ * of the same column, storing only the meaningful bits. Regular samples cost a bit or two for
+ * the timestamp and unchanged values a single bit.
+ * <p>
+ * The bit stream lives in a plain long array. A block only grows at the end and is trimmed
+ * when sealed; it is not thread-safe, callers guard it.
+ */
+final class GorillaBlock {
+    private final int columns;
+    private long[] words;
+    private int bitLength;
+    private int count;
+    private long firstTime;
+    private long lastTime;
+
+    // Encoder state
+    private long previousDelta;
+    private final long[] previousBits;
+    private final int[] previousLeading;
+    private final int[] previousTrailing;
+
+    GorillaBlock(int columns, int initialWords) {
+        this.columns = columns;
+        this.words = new long[Math.max(1, initialWords)];
+        this.previousBits = new long[columns];
+        this.previousLeading = new int[columns];
+        this.previousTrailing = new int[columns];
+    }
+
+    // Rebuilds a sealed block from its persisted form; it only supports reading
+    static GorillaBlock restore(int columns, long firstTime, long lastTime, int count, int bitLength, long[] words) {
+        GorillaBlock block = new GorillaBlock(columns, 0);
+        block.words = words;
+        block.firstTime = firstTime;
+        block.lastTime = lastTime;
+        block.count = count;
+        block.bitLength = bitLength;
+        return block;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstTime() {
+        return firstTime;
+    }
+
+    long lastTime() {
+        return lastTime;
+    }
+
+    int bitLength() {
+        return bitLength;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    int sizeBytes() {
+        return words.length * Long.BYTES;
+    }
+
+    // Timestamps must increase; NaN stands for a missing value
+    void append(long time, double[] values) {
+        if (count == 0) {
+            firstTime = time;
+            writeBits(time, 64);
+            for (int column = 0; column < columns; column++) {
+                long bits = Double.doubleToRawLongBits(values[column]);
+                writeBits(bits, 64);
+                previousBits[column] = bits;
+                previousLeading[column] = -1;
+            }
+        } else {
+            long delta = time - lastTime;
+            writeDeltaOfDelta(delta - previousDelta);
+            previousDelta = delta;
+            for (int column = 0; column < columns; column++) {
+                writeValue(column, Double.doubleToRawLongBits(values[column]));
+            }
+        }
+        lastTime = time;
+        count++;
+    }
+
+    void seal() {
+        words = Arrays.copyOf(words, (bitLength + 63) >>> 6);
+    }
+
+    interface SampleVisitor {
+        // Return false to stop the scan
+        boolean visit(long time, double[] values);
+    }
+
+    // Visits samples in [from, to]; the values array is reused between calls
+    void scan(long from, long to, SampleVisitor visitor) {
+        if (count == 0 || to < firstTime || from > lastTime) {
+            return;
+        }
+        BitReader reader = new BitReader(words);
+        double[] values = new double[columns];
+        long[] bits = new long[columns];
+        int[] leading = new int[columns];
+        int[] trailing = new int[columns];
+
+        long time = reader.read(64);
+        for (int column = 0; column < columns; column++) {
+            bits[column] = reader.read(64);
+            values[column] = Double.longBitsToDouble(bits[column]);
+        }
+        long delta = 0;
+        for (int sample = 0; ; ) {
+            if (time > to) {
+                return;
+            }
+            if (time >= from && !visitor.visit(time, values)) {
+                return;
+            }
+            if (++sample == count) {
+                return;
+            }
+            delta += readDeltaOfDelta(reader);
+            time += delta;
+            for (int column = 0; column < columns; column++) {
+                if (reader.read(1) != 0) {
+                    if (reader.read(1) != 0) {
+                        leading[column] = (int) reader.read(5);
+                        int meaningful = (int) reader.read(6) + 1;
+                        trailing[column] = 64 - leading[column] - meaningful;
+                    }
+                    int meaningful = 64 - leading[column] - trailing[column];
+                    bits[column] ^= reader.read(meaningful) << trailing[column];
+                    values[column] = Double.longBitsToDouble(bits[column]);
+                }
+            }
+        }
+    }
+
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writeBits(0b0, 1);
+        } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+            writeBits(0b10, 2);
+            writeBits(deltaOfDelta + 63, 7);
+        } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+            writeBits(0b110, 3);
+            writeBits(deltaOfDelta + 255, 9);
+        } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+            writeBits(0b1110, 4);
+            writeBits(deltaOfDelta + 2047, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader reader) {
+        if (reader.read(1) == 0) {
+            return 0;
+        }
+        if (reader.read(1) == 0) {
+            return reader.read(7) - 63;
+        }
+        if (reader.read(1) == 0) {
+            return reader.read(9) - 255;
+        }
+        if (reader.read(1) == 0) {
+            return reader.read(12) - 2047;
+        }
+        return reader.read(64);
+    }
+
+    private void writeValue(int column, long bits) {
+        long xor = bits ^ previousBits[column];
+        previousBits[column] = bits;
+        if (xor == 0) {
+            writeBits(0b0, 1);
+            return;
+        }
+        // Leading zeros are stored in 5 bits
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading[column] >= 0 && leading >= previousLeading[column]
+                && trailing >= previousTrailing[column]) {
+            // Fits in the previous meaningful-bit window
+            writeBits(0b10, 2);
+            writeBits(xor >>> previousTrailing[column], 64 - previousLeading[column] - previousTrailing[column]);
+        } else {
+            int meaningful = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(meaningful - 1, 6);
+            writeBits(xor >>> trailing, meaningful);
+            previousLeading[column] = leading;
+            previousTrailing[column] = trailing;
+        }
+    }
+
+    private void writeBits(long value, int length) {
+        int index = bitLength >>> 6;
+        if (index + 1 >= words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, index + 2));
+        }
+        if (length < 64) {
+            value &= (1L << length) - 1;
+        }
+        int free = 64 - (bitLength & 63);
+        if (length <= free) {
+            words[index] |= value << (free - length);
+        } else {
+            int rest = length - free;
+            words[index] |= value >>> rest;
+            words[index + 1] |= value << (64 - rest);
+        }
+        bitLength += length;
+    }
+
+    private static final class BitReader {
+        private final long[] words;
+        private int position;
+
+        private BitReader(long[] words) {
+            this.words = words;
+        }
+
+        private long read(int length) {
+            int index = position >>> 6;
+            int free = 64 - (position & 63);
+            position += length;
+            if (length <= free) {
+                long value = words[index] >>> (free - length);
+                return length == 64 ? value : value & ((1L << length) - 1);
+            }
+            int rest = length - free;
+            long high = words[index] & ((1L << free) - 1);
+            return (high << rest) | (words[index + 1] >>> (64 - rest));
+        }
+    }
+}
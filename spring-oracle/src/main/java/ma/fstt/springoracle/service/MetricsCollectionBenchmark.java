@@ -0,0 +1,121 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.dto.CollectionBenchmarkDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Measures the per-sample cost of the single-statement collector against the
+ * previous five-query collection, on the live instance. Neither path persists
+ * anything or advances the collector's delta state.
+ */
+@Component
+public class MetricsCollectionBenchmark {
+    private static final int MAX_ITERATIONS = 200;
+
+    // The statements the collector used to run one after the other
+    private static final String[] LEGACY_QUERIES = {
+            """
+            SELECT ROUND(
+                (SELECT value FROM v$sysstat
+                 WHERE name = 'CPU used by this session') /
+                (SELECT value * 100 FROM v$parameter
+                 WHERE name = 'cpu_count'),
+                2) as cpu_percentage
+            FROM dual
+            """,
+            """
+            SELECT ROUND(SUM(bytes)/(1024*1024), 2) as sga_mb
+            FROM v$sgastat
+            """,
+            """
+            SELECT ROUND(value/(1024*1024), 2) as pga_mb
+            FROM v$pgastat
+            WHERE name = 'total PGA allocated'
+            """,
+            """
+            SELECT ROUND(
+                (1 - (phy.value / (cur.value + con.value))) * 100,
+                2) as buffer_cache_hit_ratio
+            FROM v$sysstat cur, v$sysstat con, v$sysstat phy
+            WHERE cur.name = 'db block gets'
+            AND con.name = 'consistent gets'
+            AND phy.name = 'physical reads'
+            """,
+            """
+            SELECT ROUND(
+                value /
+                (SYSDATE - startup_time) * 86400,
+                2) as io_per_second
+            FROM v$sysstat, v$instance
+            WHERE name = 'physical reads'
+            """
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PerformanceMetricsCollector collector;
+
+    public CollectionBenchmarkDTO run(int iterations) {
+        int runs = Math.max(1, Math.min(iterations, MAX_ITERATIONS));
+        long[] legacy = new long[runs];
+        long[] single = new long[runs];
+
+        // Warm up both paths so the first hard parse does not skew the comparison
+        collectLegacy();
+        collector.fetch();
+
+        // Interleaved so that load changes on the instance hit both paths equally
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            collectLegacy();
+            legacy[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            collector.fetch();
+            single[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(legacy);
+        Arrays.sort(single);
+        double legacyAvg = averageMs(legacy);
+        double singleAvg = averageMs(single);
+
+        return CollectionBenchmarkDTO.builder()
+                .iterations(runs)
+                .legacyAvgMs(legacyAvg)
+                .legacyP50Ms(percentileMs(legacy, 0.50))
+                .legacyP95Ms(percentileMs(legacy, 0.95))
+                .legacyMaxMs(percentileMs(legacy, 1.0))
+                .singleQueryAvgMs(singleAvg)
+                .singleQueryP50Ms(percentileMs(single, 0.50))
+                .singleQueryP95Ms(percentileMs(single, 0.95))
+                .singleQueryMaxMs(percentileMs(single, 1.0))
+                .speedup(singleAvg > 0 ? legacyAvg / singleAvg : 0)
+                .build();
+    }
+
+    private void collectLegacy() {
+        for (String sql : LEGACY_QUERIES) {
+            jdbcTemplate.queryForObject(sql, Double.class);
+        }
+    }
+
+    private static double averageMs(long[] sortedNanos) {
+        long total = 0;
+        for (long nanos : sortedNanos) {
+            total += nanos;
+        }
+        return total / (double) sortedNanos.length / 1_000_000;
+    }
+
+    private static double percentileMs(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,149 @@
+package ma.fstt.springoracle.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams performance_metrics rows straight from a forward-only cursor to an output stream,
+ * one row at a time, so memory use does not depend on the size of the requested range.
+ */
+@Component
+public class MetricsExportService {
+
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat from(String value) {
+            for (ExportFormat format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+
+    private static final String EXPORT_SQL = """
+            SELECT id, timestamp, cpu_usage_percent, memory_usagemb, buffer_cache_hit_ratio,
+                   io_operations_per_second, pga_usagemb
+            FROM performance_metrics
+            WHERE timestamp >= ? AND timestamp < ?
+            ORDER BY timestamp
+            """;
+
+    private static final String[] COLUMNS = {
+            "cpuUsagePercent", "memoryUsageMB", "bufferCacheHitRatio", "ioOperationsPerSecond", "pgaUsageMB"
+    };
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${performance.metrics.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public void export(LocalDateTime start, LocalDateTime end, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        StringBuilder line = new StringBuilder(256);
+        long[] rows = {0};
+
+        if (format == ExportFormat.CSV) {
+            writer.write("id,timestamp," + String.join(",", COLUMNS) + "\n");
+        }
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setTimestamp(1, Timestamp.valueOf(start));
+                ps.setTimestamp(2, Timestamp.valueOf(end));
+                return ps;
+            }, rs -> {
+                line.setLength(0);
+                if (format == ExportFormat.CSV) {
+                    appendCsv(rs, line);
+                } else {
+                    appendJson(rs, line);
+                }
+                try {
+                    writer.append(line);
+                    // Push each fetched batch to the client instead of waiting for the whole range
+                    if (++rows[0] % fetchSize == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void appendJson(ResultSet rs, StringBuilder line) throws SQLException {
+        line.append("{\"id\":").append(rs.getLong(1))
+                .append(",\"timestamp\":\"").append(formatTimestamp(rs.getTimestamp(2))).append('"');
+        for (int i = 0; i < COLUMNS.length; i++) {
+            line.append(",\"").append(COLUMNS[i]).append("\":");
+            appendNumber(rs, i + 3, line, "null");
+        }
+        line.append("}\n");
+    }
+
+    private static void appendCsv(ResultSet rs, StringBuilder line) throws SQLException {
+        line.append(rs.getLong(1)).append(',').append(formatTimestamp(rs.getTimestamp(2)));
+        for (int i = 0; i < COLUMNS.length; i++) {
+            line.append(',');
+            appendNumber(rs, i + 3, line, "");
+        }
+        line.append('\n');
+    }
+
+    private static void appendNumber(ResultSet rs, int column, StringBuilder line, String nullValue) throws SQLException {
+        double value = rs.getDouble(column);
+        if (rs.wasNull()) {
+            line.append(nullValue);
+        } else {
+            line.append(value);
+        }
+    }
+
+    private static String formatTimestamp(Timestamp timestamp) {
+        return timestamp != null ? TIMESTAMP_FORMAT.format(timestamp.toLocalDateTime()) : "";
+    }
+}
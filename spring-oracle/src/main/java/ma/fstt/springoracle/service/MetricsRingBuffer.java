@@ -0,0 +1,82 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.model.PerformanceMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of the most recent metrics samples.
+ * <p>
+ * Single writer (the sampler), any number of lock-free readers. Every slot carries the
+ * sequence number it was written with, so a reader that races with the writer lapping
+ * the ring stops at the first overwritten slot instead of returning out-of-order samples.
+ */
+public class MetricsRingBuffer {
+
+    private record Slot(long sequence, PerformanceMetrics metrics) {
+    }
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final int capacity;
+    private final AtomicLong head = new AtomicLong(-1);
+
+    public MetricsRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    // Must only be called from a single thread at a time
+    public void publish(PerformanceMetrics metrics) {
+        long sequence = head.get() + 1;
+        slots.set(index(sequence), new Slot(sequence, metrics));
+        head.set(sequence);
+    }
+
+    public PerformanceMetrics latest() {
+        long sequence = head.get();
+        if (sequence < 0) {
+            return null;
+        }
+        Slot slot = slots.get(index(sequence));
+        return slot != null ? slot.metrics() : null;
+    }
+
+    // Returns up to count samples, oldest first
+    public List<PerformanceMetrics> recent(int count) {
+        long newest = head.get();
+        if (newest < 0 || count <= 0) {
+            return Collections.emptyList();
+        }
+        long oldest = Math.max(0, newest - Math.min(count, capacity) + 1);
+
+        List<PerformanceMetrics> result = new ArrayList<>((int) (newest - oldest + 1));
+        for (long sequence = newest; sequence >= oldest; sequence--) {
+            Slot slot = slots.get(index(sequence));
+            if (slot == null || slot.sequence() != sequence) {
+                break;
+            }
+            result.add(slot.metrics());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    public long size() {
+        return Math.min(head.get() + 1, capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
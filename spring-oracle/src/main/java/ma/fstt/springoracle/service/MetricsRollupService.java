@@ -0,0 +1,293 @@
+package ma.fstt.springoracle.service;
+
+import jakarta.annotation.PostConstruct;
+import ma.fstt.springoracle.dto.MetricsHistoryDTO;
+import ma.fstt.springoracle.dto.MetricsRollupDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps 1-minute, 1-hour and 1-day aggregates (count, min, max, avg, p95 per metric) of the
+ * performance_metrics samples and trims every tier to its retention.
+ * <p>
+ * Minute and hour buckets are aggregated from the raw samples, day buckets from the hour
+ * tier, so their p95 is the 95th percentile of the hourly p95 values. The last few closed
+ * buckets are recomputed on every run with MERGE, which picks up samples that reached the
+ * table late through the write-behind queue.
+ */
+@Component
+public class MetricsRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRollupService.class);
+
+    public enum RollupTier {
+        RAW("raw", 0, null, 0),
+        MINUTE("1m", 60, "MI", 5),
+        HOUR("1h", 3600, "HH", 2),
+        DAY("1d", 86400, "DD", 2);
+
+        private final String code;
+        private final long bucketSeconds;
+        private final String truncFormat;
+        private final int recomputedBuckets;
+
+        RollupTier(String code, long bucketSeconds, String truncFormat, int recomputedBuckets) {
+            this.code = code;
+            this.bucketSeconds = bucketSeconds;
+            this.truncFormat = truncFormat;
+            this.recomputedBuckets = recomputedBuckets;
+        }
+
+        public String getCode() {
+            return code;
+        }
+    }
+
+    // Unpivots the wide sample rows into (timestamp, metric, val); NULL values are skipped
+    private static final String UNPIVOTED_SAMPLES = """
+            (SELECT timestamp, metric, val
+             FROM performance_metrics
+             UNPIVOT (val FOR metric IN (
+                 cpu_usage_percent AS 'cpuUsagePercent',
+                 memory_usagemb AS 'memoryUsageMB',
+                 buffer_cache_hit_ratio AS 'bufferCacheHitRatio',
+                 io_operations_per_second AS 'ioOperationsPerSecond',
+                 pga_usagemb AS 'pgaUsageMB')))
+            """;
+
+    private static final String MERGE_FROM_RAW = """
+            MERGE INTO performance_metrics_rollup r
+            USING (
+                SELECT TRUNC(timestamp, '%s') AS bucket_start, metric,
+                       COUNT(*) AS sample_count, MIN(val) AS min_value, MAX(val) AS max_value,
+                       AVG(val) AS avg_value,
+                       PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY val) AS p95_value
+                FROM %s
+                WHERE timestamp >= ? AND timestamp < ?
+                GROUP BY TRUNC(timestamp, '%s'), metric
+            ) s
+            ON (r.tier = ? AND r.bucket_start = s.bucket_start AND r.metric = s.metric)
+            WHEN MATCHED THEN UPDATE SET
+                r.sample_count = s.sample_count, r.min_value = s.min_value, r.max_value = s.max_value,
+                r.avg_value = s.avg_value, r.p95_value = s.p95_value
+            WHEN NOT MATCHED THEN INSERT
+                (tier, bucket_start, metric, sample_count, min_value, max_value, avg_value, p95_value)
+                VALUES (?, s.bucket_start, s.metric, s.sample_count, s.min_value, s.max_value, s.avg_value, s.p95_value)
+            """;
+
+    private static final String MERGE_FROM_TIER = """
+            MERGE INTO performance_metrics_rollup r
+            USING (
+                SELECT TRUNC(bucket_start, '%s') AS bucket_start, metric,
+                       SUM(sample_count) AS sample_count, MIN(min_value) AS min_value,
+                       MAX(max_value) AS max_value,
+                       SUM(avg_value * sample_count) / SUM(sample_count) AS avg_value,
+                       PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY p95_value) AS p95_value
+                FROM performance_metrics_rollup
+                WHERE tier = ? AND bucket_start >= ? AND bucket_start < ?
+                GROUP BY TRUNC(bucket_start, '%s'), metric
+            ) s
+            ON (r.tier = ? AND r.bucket_start = s.bucket_start AND r.metric = s.metric)
+            WHEN MATCHED THEN UPDATE SET
+                r.sample_count = s.sample_count, r.min_value = s.min_value, r.max_value = s.max_value,
+                r.avg_value = s.avg_value, r.p95_value = s.p95_value
+            WHEN NOT MATCHED THEN INSERT
+                (tier, bucket_start, metric, sample_count, min_value, max_value, avg_value, p95_value)
+                VALUES (?, s.bucket_start, s.metric, s.sample_count, s.min_value, s.max_value, s.avg_value, s.p95_value)
+            """;
+
+    private static final RowMapper<MetricsRollupDTO> ROLLUP_MAPPER = (rs, rowNum) -> MetricsRollupDTO.builder()
+            .bucketStart(rs.getTimestamp("bucket_start").toLocalDateTime())
+            .metric(rs.getString("metric"))
+            .sampleCount(rs.getLong("sample_count"))
+            .min(rs.getObject("min_value") != null ? rs.getDouble("min_value") : null)
+            .max(rs.getObject("max_value") != null ? rs.getDouble("max_value") : null)
+            .avg(rs.getObject("avg_value") != null ? rs.getDouble("avg_value") : null)
+            .p95(rs.getObject("p95_value") != null ? rs.getDouble("p95_value") : null)
+            .build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${performance.metrics.sampler.interval-ms:10000}")
+    private long samplerIntervalMs;
+
+    @Value("${performance.metrics.rollup.max-points:1500}")
+    private long maxPoints;
+
+    private final Map<RollupTier, Duration> retention = new EnumMap<>(RollupTier.class);
+    private final Map<RollupTier, LocalDateTime> lastRolledBucket = new EnumMap<>(RollupTier.class);
+
+    @Autowired
+    public MetricsRollupService(
+            @Value("${performance.metrics.rollup.retention.raw-hours:48}") long rawHours,
+            @Value("${performance.metrics.rollup.retention.minute-days:14}") long minuteDays,
+            @Value("${performance.metrics.rollup.retention.hour-days:180}") long hourDays,
+            @Value("${performance.metrics.rollup.retention.day-days:1825}") long dayDays) {
+        // Hour buckets are built from raw samples, so raw data has to outlive them
+        retention.put(RollupTier.RAW, Duration.ofHours(Math.max(rawHours, 3)));
+        retention.put(RollupTier.MINUTE, Duration.ofDays(minuteDays));
+        retention.put(RollupTier.HOUR, Duration.ofDays(Math.max(hourDays, 3)));
+        retention.put(RollupTier.DAY, Duration.ofDays(dayDays));
+    }
+
+    @PostConstruct
+    public void init() {
+        createRollupTable();
+    }
+
+    private void createRollupTable() {
+        try {
+            String createTableSql = """
+                CREATE TABLE performance_metrics_rollup (
+                    tier VARCHAR2(4) NOT NULL,
+                    bucket_start DATE NOT NULL,
+                    metric VARCHAR2(40) NOT NULL,
+                    sample_count NUMBER NOT NULL,
+                    min_value NUMBER,
+                    max_value NUMBER,
+                    avg_value NUMBER,
+                    p95_value NUMBER,
+                    CONSTRAINT pk_performance_metrics_rollup PRIMARY KEY (tier, bucket_start, metric)
+                ) ORGANIZATION INDEX
+            """;
+            jdbcTemplate.execute(createTableSql);
+        } catch (Exception e) {
+            logger.warn("Rollup table might already exist: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${performance.metrics.rollup.interval-ms:60000}",
+            initialDelayString = "${performance.metrics.rollup.interval-ms:60000}")
+    public void scheduledRollup() {
+        try {
+            rollup(LocalDateTime.now());
+            applyRetention(LocalDateTime.now());
+        } catch (Exception e) {
+            logger.warn("Metrics rollup failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized void rollup(LocalDateTime now) {
+        rollupTier(RollupTier.MINUTE, now, null);
+        rollupTier(RollupTier.HOUR, now, null);
+        rollupTier(RollupTier.DAY, now, RollupTier.HOUR);
+    }
+
+    // Recomputes the last closed buckets of a tier, once per newly closed bucket.
+    // The first run after startup backfills everything the source still holds.
+    private void rollupTier(RollupTier tier, LocalDateTime now, RollupTier source) {
+        LocalDateTime currentBucket = bucketStart(tier, now);
+        LocalDateTime previousRun = lastRolledBucket.get(tier);
+        if (currentBucket.equals(previousRun)) {
+            return;
+        }
+        LocalDateTime from = previousRun != null
+                ? currentBucket.minusSeconds(tier.bucketSeconds * tier.recomputedBuckets)
+                : bucketStart(tier, now.minus(retention.get(source != null ? source : RollupTier.RAW)));
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(currentBucket);
+
+        int rows;
+        if (source == null) {
+            String sql = MERGE_FROM_RAW.formatted(tier.truncFormat, UNPIVOTED_SAMPLES, tier.truncFormat);
+            rows = jdbcTemplate.update(sql, fromTs, toTs, tier.code, tier.code);
+        } else {
+            String sql = MERGE_FROM_TIER.formatted(tier.truncFormat, tier.truncFormat);
+            rows = jdbcTemplate.update(sql, source.code, fromTs, toTs, tier.code, tier.code);
+        }
+        lastRolledBucket.put(tier, currentBucket);
+        logger.debug("Rolled up " + rows + " " + tier.code + " buckets since " + from);
+    }
+
+    public void applyRetention(LocalDateTime now) {
+        Timestamp rawCutoff = Timestamp.valueOf(now.minus(retention.get(RollupTier.RAW)));
+        int raw = jdbcTemplate.update("DELETE FROM performance_metrics WHERE timestamp < ?", rawCutoff);
+
+        int rollups = 0;
+        for (RollupTier tier : List.of(RollupTier.MINUTE, RollupTier.HOUR, RollupTier.DAY)) {
+            Timestamp cutoff = Timestamp.valueOf(now.minus(retention.get(tier)));
+            rollups += jdbcTemplate.update(
+                    "DELETE FROM performance_metrics_rollup WHERE tier = ? AND bucket_start < ?",
+                    tier.code, cutoff);
+        }
+        if (raw + rollups > 0) {
+            logger.debug("Retention removed " + raw + " raw samples and " + rollups + " rollup rows");
+        }
+    }
+
+    // Finest tier that still holds the start of the range and keeps the point count bounded
+    public RollupTier selectTier(LocalDateTime start, LocalDateTime end) {
+        long rangeSeconds = Math.max(1, Duration.between(start, end).getSeconds());
+        LocalDateTime now = LocalDateTime.now();
+        for (RollupTier tier : RollupTier.values()) {
+            long bucketSeconds = bucketSeconds(tier);
+            boolean retained = !start.isBefore(now.minus(retention.get(tier)));
+            if (retained && rangeSeconds / bucketSeconds <= maxPoints) {
+                return tier;
+            }
+        }
+        return RollupTier.DAY;
+    }
+
+    public MetricsHistoryDTO getHistory(LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End of the range must be after its start");
+        }
+        RollupTier tier = selectTier(start, end);
+        Timestamp startTs = Timestamp.valueOf(start);
+        Timestamp endTs = Timestamp.valueOf(end);
+
+        List<MetricsRollupDTO> points;
+        if (tier == RollupTier.RAW) {
+            points = jdbcTemplate.query("""
+                    SELECT timestamp AS bucket_start, metric, 1 AS sample_count,
+                           val AS min_value, val AS max_value, val AS avg_value, val AS p95_value
+                    FROM %s
+                    WHERE timestamp >= ? AND timestamp < ?
+                    ORDER BY timestamp, metric
+                    """.formatted(UNPIVOTED_SAMPLES), ROLLUP_MAPPER, startTs, endTs);
+        } else {
+            points = jdbcTemplate.query("""
+                    SELECT bucket_start, metric, sample_count, min_value, max_value, avg_value, p95_value
+                    FROM performance_metrics_rollup
+                    WHERE tier = ? AND bucket_start >= ? AND bucket_start < ?
+                    ORDER BY bucket_start, metric
+                    """, ROLLUP_MAPPER, tier.code, startTs, endTs);
+        }
+
+        return MetricsHistoryDTO.builder()
+                .tier(tier.code)
+                .bucketSeconds(bucketSeconds(tier))
+                .start(start)
+                .end(end)
+                .points(points)
+                .build();
+    }
+
+    private long bucketSeconds(RollupTier tier) {
+        return tier == RollupTier.RAW ? Math.max(1, samplerIntervalMs / 1000) : tier.bucketSeconds;
+    }
+
+    private static LocalDateTime bucketStart(RollupTier tier, LocalDateTime time) {
+        return switch (tier) {
+            case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case RAW -> time;
+        };
+    }
+}
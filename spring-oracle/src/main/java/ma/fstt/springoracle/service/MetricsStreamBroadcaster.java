@@ -0,0 +1,237 @@
+package ma.fstt.springoracle.service;
+
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.model.PerformanceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes every new metrics sample to all Server-Sent Events subscribers.
+ * <p>
+ * The sampler only enqueues: each subscriber has its own small bounded queue that drops the
+ * oldest sample when the client falls behind, and is drained by a shared sender pool with at
+ * most one send task in flight per subscriber. Any number of open dashboards therefore costs
+ * the database one sampling query per interval, and a slow client never delays the others.
+ * <p>
+ * A send is a blocking write to the client's socket. A watchdog evicts a subscriber whose send
+ * has been in flight longer than {@code send-timeout-ms} and adds a sender thread to stand in
+ * for the one stuck on its socket until that write returns, so stalled clients never take the
+ * threads the others are served by.
+ */
+@Component
+public class MetricsStreamBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsStreamBroadcaster.class);
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService watchdog;
+    private final long sendTimeoutNanos;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    @Autowired
+    public MetricsStreamBroadcaster(@Value("${performance.metrics.stream.sender-threads:4}") int senderThreads,
+                                    @Value("${performance.metrics.stream.buffer-size:16}") int bufferSize,
+                                    @Value("${performance.metrics.stream.max-subscribers:500}") int maxSubscribers,
+                                    @Value("${performance.metrics.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+                                    @Value("${performance.metrics.stream.send-timeout-ms:10000}") long sendTimeoutMs) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "metrics-sse-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-sse-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        long checkMs = Math.max(100, Math.min(sendTimeoutMs, 1000));
+        watchdog.scheduleWithFixedDelay(this::evictStalled, checkMs, checkMs, TimeUnit.MILLISECONDS);
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public SseEmitter subscribe(PerformanceMetrics initial) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many metrics stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        if (initial != null) {
+            enqueue(subscriber, initial);
+        }
+        return emitter;
+    }
+
+    // Called from the sampler thread, never blocks
+    public void publish(PerformanceMetrics metrics) {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, metrics);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("subscribers", (long) subscribers.size());
+        stats.put("sent", sent.get());
+        stats.put("dropped", dropped.get());
+        stats.put("evicted", evicted.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private void enqueue(Subscriber subscriber, PerformanceMetrics metrics) {
+        while (!subscriber.queue.offer(metrics)) {
+            if (subscriber.queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (Exception e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            PerformanceMetrics metrics;
+            while (!subscriber.evicted && (metrics = subscriber.queue.poll()) != null) {
+                sendStarted(subscriber);
+                try {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .name("metrics")
+                            .data(metrics, MediaType.APPLICATION_JSON));
+                } finally {
+                    sendFinished(subscriber);
+                }
+                sent.incrementAndGet();
+            }
+            if (subscriber.evicted) {
+                throw new IOException("send took longer than " + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " ms");
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping metrics stream subscriber: " + e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A sample may have been queued after the last poll but before the flag was released
+        if (!subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    // Evicts subscribers stuck in a send and lends the pool a thread for each one still blocked
+    private void evictStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                if (subscriber.sendStartedNanos == 0 || subscriber.stalled
+                        || now - subscriber.sendStartedNanos < sendTimeoutNanos) {
+                    continue;
+                }
+                subscriber.stalled = true;
+                subscriber.evicted = true;
+                resizeSenders(1);
+            }
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            evicted.incrementAndGet();
+            logger.debug("Evicting metrics stream subscriber stuck in a send");
+        }
+    }
+
+    private void sendStarted(Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.sendStartedNanos = System.nanoTime();
+        }
+    }
+
+    private void sendFinished(Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.sendStartedNanos = 0;
+            if (subscriber.stalled) {
+                subscriber.stalled = false;
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<PerformanceMetrics> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Written under the subscriber lock
+        private volatile long sendStartedNanos;
+        private volatile boolean stalled;
+        private volatile boolean evicted;
+
+        private Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package ma.fstt.springoracle.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.dto.MetricsHistoryDTO;
+import ma.fstt.springoracle.dto.MetricsRollupDTO;
+import ma.fstt.springoracle.model.PerformanceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded time-series store for metric samples, kept in Gorilla-compressed blocks instead of
+ * one boxed entity per sample. A 10-second sample of the five metrics takes around 30 bytes
+ * when every value changes (against 48 raw) and a few bits for unchanged values, so 90 days of
+ * history fit in a few tens of megabytes of heap.
+ * <p>
+ * Samples go to an active block that is sealed once full. When a file is configured, every
+ * sealed block is appended to it through a memory-mapped region and the file is read back at
+ * startup. Expired blocks are dropped from memory when a block is sealed, and the file is then
+ * rewritten without them.
+ */
+@Component
+public class MetricsTimeSeriesStore {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsTimeSeriesStore.class);
+
+    static final String[] METRICS = {
+            "cpuUsagePercent", "memoryUsageMB", "bufferCacheHitRatio", "ioOperationsPerSecond", "pgaUsageMB"};
+    private static final long FILE_MAGIC = 0x4F52415453444231L; // "ORATSDB1"
+    private static final int RECORD_HEADER_BYTES = 8 + 8 + 4 + 4 + 4;
+    private static final int MAX_POINTS = 10_000;
+
+    private final int blockSamples;
+    private final long retentionMillis;
+    private final Path file;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, GorillaBlock> sealed = new TreeMap<>();
+    private final double[] row = new double[METRICS.length];
+    private GorillaBlock active;
+    private long lastTime = Long.MIN_VALUE;
+
+    @Autowired
+    public MetricsTimeSeriesStore(@Value("${performance.metrics.tsdb.block-samples:720}") int blockSamples,
+                                  @Value("${performance.metrics.tsdb.retention-days:90}") int retentionDays,
+                                  @Value("${performance.metrics.tsdb.file:}") String file) {
+        this.blockSamples = blockSamples;
+        this.retentionMillis = retentionDays * 24L * 3600 * 1000;
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+        this.active = newBlock();
+    }
+
+    @PostConstruct
+    public void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        boolean expired = false;
+        long validBytes = 8;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 8) {
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getLong() != FILE_MAGIC) {
+                logger.warn("Ignoring " + file + ": not a metrics store file");
+                return;
+            }
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                long firstTime = buffer.getLong();
+                long blockLastTime = buffer.getLong();
+                int count = buffer.getInt();
+                int bitLength = buffer.getInt();
+                int wordCount = buffer.getInt();
+                if (count <= 0 || wordCount < 0 || buffer.remaining() < (long) wordCount * Long.BYTES) {
+                    break; // Torn write at the end of the file
+                }
+                long[] words = new long[wordCount];
+                buffer.asLongBuffer().get(words);
+                buffer.position(buffer.position() + wordCount * Long.BYTES);
+                validBytes = buffer.position();
+                if (blockLastTime < cutoff) {
+                    expired = true;
+                    continue;
+                }
+                sealed.put(firstTime, GorillaBlock.restore(METRICS.length, firstTime, blockLastTime, count, bitLength, words));
+                lastTime = Math.max(lastTime, blockLastTime);
+            }
+            if (validBytes < size) {
+                expired = true;
+            }
+        } catch (IOException e) {
+            logger.error("Could not read metrics store file " + file + ": " + e.getMessage());
+            return;
+        }
+        if (expired) {
+            rewriteFile();
+        }
+        logger.info("Loaded " + sealed.size() + " metric blocks from " + file);
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (active.count() > 0) {
+                sealActive();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void append(PerformanceMetrics metrics) {
+        long time = metrics.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+        lock.writeLock().lock();
+        try {
+            if (time <= lastTime) {
+                return;
+            }
+            row[0] = valueOf(metrics.getCpuUsagePercent());
+            row[1] = valueOf(metrics.getMemoryUsageMB());
+            row[2] = valueOf(metrics.getBufferCacheHitRatio());
+            row[3] = valueOf(metrics.getIoOperationsPerSecond());
+            row[4] = valueOf(metrics.getPgaUsageMB());
+            active.append(time, row);
+            lastTime = time;
+            if (active.count() >= blockSamples) {
+                sealActive();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Raw samples in [start, end]
+    public List<PerformanceMetrics> scan(LocalDateTime start, LocalDateTime end) {
+        List<PerformanceMetrics> samples = new ArrayList<>();
+        forEach(start, end, (time, values) -> {
+            PerformanceMetrics metrics = new PerformanceMetrics();
+            metrics.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(time), zone));
+            metrics.setCpuUsagePercent(boxed(values[0]));
+            metrics.setMemoryUsageMB(boxed(values[1]));
+            metrics.setBufferCacheHitRatio(boxed(values[2]));
+            metrics.setIoOperationsPerSecond(boxed(values[3]));
+            metrics.setPgaUsageMB(boxed(values[4]));
+            samples.add(metrics);
+            return samples.size() < MAX_POINTS;
+        });
+        return samples;
+    }
+
+    // Count, min, max and avg of each metric per bucket of the given width
+    public MetricsHistoryDTO downsample(LocalDateTime start, LocalDateTime end, long bucketSeconds) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End of the range must be after its start");
+        }
+        long from = toMillis(start);
+        long to = toMillis(end);
+        long bucketMillis = Math.max(bucketSeconds * 1000, (to - from + MAX_POINTS - 1) / MAX_POINTS);
+        int bucketCount = (int) ((to - from) / bucketMillis) + 1;
+        long[] counts = new long[bucketCount * METRICS.length];
+        double[] sums = new double[counts.length];
+        double[] mins = new double[counts.length];
+        double[] maxs = new double[counts.length];
+
+        forEach(start, end, (time, values) -> {
+            int bucket = (int) ((time - from) / bucketMillis);
+            for (int metric = 0; metric < METRICS.length; metric++) {
+                double value = values[metric];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int slot = bucket * METRICS.length + metric;
+                if (counts[slot]++ == 0) {
+                    mins[slot] = value;
+                    maxs[slot] = value;
+                } else {
+                    mins[slot] = Math.min(mins[slot], value);
+                    maxs[slot] = Math.max(maxs[slot], value);
+                }
+                sums[slot] += value;
+            }
+            return true;
+        });
+
+        List<MetricsRollupDTO> points = new ArrayList<>();
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            LocalDateTime bucketStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(from + bucket * bucketMillis), zone);
+            for (int metric = 0; metric < METRICS.length; metric++) {
+                int slot = bucket * METRICS.length + metric;
+                if (counts[slot] > 0) {
+                    points.add(MetricsRollupDTO.builder()
+                            .bucketStart(bucketStart)
+                            .metric(METRICS[metric])
+                            .sampleCount(counts[slot])
+                            .min(mins[slot])
+                            .max(maxs[slot])
+                            .avg(sums[slot] / counts[slot])
+                            .build());
+                }
+            }
+        }
+        return MetricsHistoryDTO.builder()
+                .tier("tsdb")
+                .bucketSeconds(bucketMillis / 1000)
+                .start(start)
+                .end(end)
+                .points(points)
+                .build();
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            long samples = active.count();
+            long bytes = active.sizeBytes();
+            long bits = active.bitLength();
+            for (GorillaBlock block : sealed.values()) {
+                samples += block.count();
+                bytes += block.sizeBytes();
+                bits += block.bitLength();
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("samples", samples);
+            stats.put("blocks", sealed.size() + 1);
+            stats.put("bytes", bytes);
+            stats.put("bytesPerSample", samples > 0 ? bits / 8.0 / samples : null);
+            stats.put("oldest", sealed.isEmpty() ? null
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(sealed.firstKey()), zone));
+            stats.put("persistentFile", file != null ? file.toString() : null);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void forEach(LocalDateTime start, LocalDateTime end, GorillaBlock.SampleVisitor visitor) {
+        long from = toMillis(start);
+        long to = toMillis(end);
+        lock.readLock().lock();
+        try {
+            // The block that may hold the first sample starts at or before the range
+            Long firstKey = sealed.floorKey(from);
+            for (GorillaBlock block : sealed.subMap(firstKey != null ? firstKey : from, true, to, true).values()) {
+                if (!scanBlock(block, from, to, visitor)) {
+                    return;
+                }
+            }
+            scanBlock(active, from, to, visitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean scanBlock(GorillaBlock block, long from, long to, GorillaBlock.SampleVisitor visitor) {
+        boolean[] stopped = new boolean[1];
+        block.scan(from, to, (time, values) -> {
+            stopped[0] = !visitor.visit(time, values);
+            return !stopped[0];
+        });
+        return !stopped[0];
+    }
+
+    private void sealActive() {
+        active.seal();
+        sealed.put(active.firstTime(), active);
+        persist(active);
+        active = newBlock();
+
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        boolean expired = false;
+        Iterator<GorillaBlock> blocks = sealed.values().iterator();
+        while (blocks.hasNext()) {
+            if (blocks.next().lastTime() < cutoff) {
+                blocks.remove();
+                expired = true;
+            }
+        }
+        if (expired && file != null) {
+            rewriteFile();
+        }
+    }
+
+    private GorillaBlock newBlock() {
+        // Starts at one word per sample and doubles when needed; trimmed when sealed
+        return new GorillaBlock(METRICS.length, blockSamples);
+    }
+
+    private void persist(GorillaBlock block) {
+        if (file == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = channel.size();
+            long[] words = block.words();
+            int length = (position == 0 ? 8 : 0) + RECORD_HEADER_BYTES + words.length * Long.BYTES;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+            if (position == 0) {
+                buffer.putLong(FILE_MAGIC);
+            }
+            writeRecord(buffer, block);
+            buffer.force();
+        } catch (IOException e) {
+            logger.error("Could not persist metric block to " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Rewrites the file with the blocks still in memory, dropping expired and torn records
+    private void rewriteFile() {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long length = 8;
+            for (GorillaBlock block : sealed.values()) {
+                length += RECORD_HEADER_BYTES + (long) block.words().length * Long.BYTES;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putLong(FILE_MAGIC);
+            for (GorillaBlock block : sealed.values()) {
+                writeRecord(buffer, block);
+            }
+            buffer.force();
+        } catch (IOException e) {
+            logger.error("Could not compact metrics store file " + file + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Could not replace metrics store file " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeRecord(MappedByteBuffer buffer, GorillaBlock block) {
+        long[] words = block.words();
+        buffer.putLong(block.firstTime());
+        buffer.putLong(block.lastTime());
+        buffer.putInt(block.count());
+        buffer.putInt(block.bitLength());
+        buffer.putInt(words.length);
+        buffer.asLongBuffer().put(words);
+        buffer.position(buffer.position() + words.length * Long.BYTES);
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
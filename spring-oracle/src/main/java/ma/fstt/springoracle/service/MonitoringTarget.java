@@ -0,0 +1,167 @@
+package ma.fstt.springoracle.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import ma.fstt.springoracle.dto.MonitoringTargetStatusDTO;
+import ma.fstt.springoracle.model.PerformanceMetrics;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * One registered database: its own small connection pool, counter delta state and sample
+ * buffer, plus collection health. Created and closed by MonitoringTargetRegistry.
+ */
+public class MonitoringTarget {
+    private final String id;
+    private final String url;
+    private final String username;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate collectionTemplate;
+    private final CounterDeltaEngine deltaEngine;
+    private final MetricsRingBuffer buffer;
+    private final Function<JdbcTemplate, AwrEngine> awrEngineFactory;
+    private final BiFunction<AwrEngine, JdbcTemplate, AwrDiffEngine> awrDiffEngineFactory;
+    private volatile AwrEngine awrEngine;
+    private volatile AwrDiffEngine awrDiffEngine;
+
+    private final AtomicBoolean collecting = new AtomicBoolean();
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong consecutiveFailures = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile long lastDurationMs;
+    private volatile String lastError;
+
+    MonitoringTarget(String id, String url, String username, HikariDataSource dataSource,
+                     int queryTimeoutSeconds, CounterDeltaEngine deltaEngine, int bufferCapacity,
+                     Function<JdbcTemplate, AwrEngine> awrEngineFactory,
+                     BiFunction<AwrEngine, JdbcTemplate, AwrDiffEngine> awrDiffEngineFactory) {
+        this.id = id;
+        this.url = url;
+        this.username = username;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Statement timeout for sampling; report queries may legitimately run longer
+        this.collectionTemplate = new JdbcTemplate(dataSource);
+        this.collectionTemplate.setQueryTimeout(queryTimeoutSeconds);
+        this.deltaEngine = deltaEngine;
+        this.buffer = new MetricsRingBuffer(bufferCapacity);
+        this.awrEngineFactory = awrEngineFactory;
+        this.awrDiffEngineFactory = awrDiffEngineFactory;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    // Same pool under the sampling statement timeout, for queries answered on a request thread
+    public JdbcTemplate getCollectionTemplate() {
+        return collectionTemplate;
+    }
+
+    public MetricsRingBuffer getBuffer() {
+        return buffer;
+    }
+
+    public AwrEngine getAwrEngine() {
+        AwrEngine engine = awrEngine;
+        if (engine == null) {
+            synchronized (this) {
+                if (awrEngine == null) {
+                    awrEngine = awrEngineFactory.apply(jdbcTemplate);
+                }
+                engine = awrEngine;
+            }
+        }
+        return engine;
+    }
+
+    public AwrDiffEngine getAwrDiffEngine() {
+        AwrDiffEngine engine = awrDiffEngine;
+        if (engine == null) {
+            AwrEngine snapshots = getAwrEngine();
+            synchronized (this) {
+                if (awrDiffEngine == null) {
+                    awrDiffEngine = awrDiffEngineFactory.apply(snapshots, jdbcTemplate);
+                }
+                engine = awrDiffEngine;
+            }
+        }
+        return engine;
+    }
+
+    // Rates computed by the latest scheduled collection
+    public CounterDeltaEngine.Rates latestRates() {
+        return deltaEngine.latest();
+    }
+
+    // Claims the target for a scheduled collection; false while the previous one still runs
+    boolean tryStartCollection() {
+        if (collecting.compareAndSet(false, true)) {
+            return true;
+        }
+        skipped.incrementAndGet();
+        return false;
+    }
+
+    void endCollection() {
+        collecting.set(false);
+    }
+
+    // Synchronized so the delta engine and the ring buffer see samples in order
+    synchronized PerformanceMetrics sample(PerformanceMetricsCollector collector) {
+        long start = System.nanoTime();
+        try {
+            PerformanceMetrics metrics = collector.collect(collectionTemplate, deltaEngine);
+            buffer.publish(metrics);
+            samples.incrementAndGet();
+            consecutiveFailures.set(0);
+            lastError = null;
+            return metrics;
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            consecutiveFailures.incrementAndGet();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            lastError = cause.getMessage();
+            throw e;
+        } finally {
+            lastDurationMs = (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    MonitoringTargetStatusDTO status() {
+        PerformanceMetrics latest = buffer.latest();
+        return MonitoringTargetStatusDTO.builder()
+                .id(id)
+                .url(url)
+                .username(username)
+                .lastSampleTime(latest != null ? latest.getTimestamp() : null)
+                .lastDurationMs(lastDurationMs)
+                .samples(samples.get())
+                .failures(failures.get())
+                .consecutiveFailures(consecutiveFailures.get())
+                .skipped(skipped.get())
+                .lastError(lastError)
+                .activeConnections(dataSource.getHikariPoolMXBean() != null
+                        ? dataSource.getHikariPoolMXBean().getActiveConnections() : 0)
+                .idleConnections(dataSource.getHikariPoolMXBean() != null
+                        ? dataSource.getHikariPoolMXBean().getIdleConnections() : 0)
+                .build();
+    }
+
+    void close() {
+        AwrDiffEngine engine = awrDiffEngine;
+        if (engine != null) {
+            engine.shutdown();
+        }
+        dataSource.close();
+    }
+}
@@ -0,0 +1,141 @@
+package ma.fstt.springoracle.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.dto.MonitoringTargetDTO;
+import ma.fstt.springoracle.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Additional databases monitored next to the application's own datasource ("primary").
+ * Every target gets a small pool of its own that opens connections lazily, so registering
+ * an unreachable database never blocks and dozens of targets cost a couple of connections each.
+ * <p>
+ * Targets serve the live views (latest and recent samples, counter rates, the ASH report) and
+ * the AWR views, which are read from the target itself. Views built on what the application
+ * collects and persists for its own database (ASH top activity, rollup history, the compressed
+ * store, export and the live stream) stay primary-only: target samples are only kept in memory.
+ */
+@Component
+public class MonitoringTargetRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MonitoringTargetRegistry.class);
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, MonitoringTarget> targets = new ConcurrentHashMap<>();
+    private final PerformanceMetricsCollector collector;
+    private final int poolSize;
+    private final int timeoutMs;
+    private final int maxTargets;
+    private final int bufferCapacity;
+    private final String[] awrSysstat;
+    private final String[] awrTimeModel;
+    private final int awrDiffCacheSize;
+
+    @Autowired
+    public MonitoringTargetRegistry(PerformanceMetricsCollector collector,
+                                    @Value("${performance.targets.pool-size:2}") int poolSize,
+                                    @Value("${performance.targets.timeout-ms:5000}") int timeoutMs,
+                                    @Value("${performance.targets.max-targets:100}") int maxTargets,
+                                    @Value("${performance.metrics.buffer.capacity:360}") int bufferCapacity,
+                                    @Value("${performance.awr.sysstat}") String[] awrSysstat,
+                                    @Value("${performance.awr.time-model}") String[] awrTimeModel,
+                                    @Value("${performance.awr.diff.cache-size:32}") int awrDiffCacheSize) {
+        this.collector = collector;
+        this.poolSize = poolSize;
+        this.timeoutMs = timeoutMs;
+        this.maxTargets = maxTargets;
+        this.bufferCapacity = bufferCapacity;
+        this.awrSysstat = awrSysstat;
+        this.awrTimeModel = awrTimeModel;
+        this.awrDiffCacheSize = awrDiffCacheSize;
+    }
+
+    public MonitoringTarget register(MonitoringTargetDTO request) {
+        String id = request.getId();
+        if (id == null || id.isBlank() || PRIMARY.equalsIgnoreCase(id)) {
+            throw new IllegalArgumentException("A target id other than '" + PRIMARY + "' is required");
+        }
+        if (request.getUrl() == null || request.getUsername() == null) {
+            throw new IllegalArgumentException("Target url and username are required");
+        }
+        if (targets.size() >= maxTargets) {
+            throw new IllegalStateException("Maximum number of monitoring targets reached: " + maxTargets);
+        }
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("target-" + id);
+        config.setDriverClassName("oracle.jdbc.OracleDriver");
+        config.setJdbcUrl(request.getUrl());
+        config.setUsername(request.getUsername());
+        config.setPassword(request.getPassword());
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(0);
+        config.setIdleTimeout(120000);
+        config.setConnectionTimeout(timeoutMs);
+        config.setValidationTimeout(Math.min(timeoutMs, 5000));
+        config.setMaxLifetime(1800000);
+        // Do not connect on registration, the first sample will
+        config.setInitializationFailTimeout(-1);
+        config.addDataSourceProperty("oracle.net.CONNECT_TIMEOUT", String.valueOf(timeoutMs));
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+        MonitoringTarget target = new MonitoringTarget(id, request.getUrl(), request.getUsername(), dataSource,
+                Math.max(1, (timeoutMs + 999) / 1000), collector.newDeltaEngine(), bufferCapacity,
+                template -> new AwrEngine(template, awrSysstat, awrTimeModel),
+                (awrEngine, template) -> new AwrDiffEngine(awrEngine, template, awrDiffCacheSize));
+        if (targets.putIfAbsent(id, target) != null) {
+            dataSource.close();
+            throw new IllegalArgumentException("Target already registered: " + id);
+        }
+        logger.info("Registered monitoring target " + id + " (" + request.getUrl() + ")");
+        return target;
+    }
+
+    public void unregister(String id) {
+        MonitoringTarget target = targets.remove(id);
+        if (target == null) {
+            throw new ResourceNotFoundException("Monitoring target not found: " + id);
+        }
+        target.close();
+        logger.info("Unregistered monitoring target " + id);
+    }
+
+    public MonitoringTarget get(String id) {
+        MonitoringTarget target = targets.get(id);
+        if (target == null) {
+            throw new ResourceNotFoundException("Monitoring target not found: " + id);
+        }
+        return target;
+    }
+
+    // True for the application's own datasource, which keeps using the regular components
+    public static boolean isPrimary(String id) {
+        return id == null || id.isBlank() || PRIMARY.equalsIgnoreCase(id);
+    }
+
+    public Collection<MonitoringTarget> all() {
+        return new ArrayList<>(targets.values());
+    }
+
+    public List<String> ids() {
+        return new ArrayList<>(targets.keySet());
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        targets.values().forEach(MonitoringTarget::close);
+        targets.clear();
+    }
+}
@@ -0,0 +1,67 @@
+package ma.fstt.springoracle.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Samples every registered target once per interval on a fixed, bounded pool.
+ * <p>
+ * The scheduling thread never waits for a database: it hands each idle target to the pool
+ * and moves on. A target whose previous sample is still running is skipped for this round,
+ * so one slow database holds at most one worker, and only until its connection or statement
+ * timeout fires.
+ */
+@Component
+public class MultiTargetCollector {
+    private static final Logger logger = LoggerFactory.getLogger(MultiTargetCollector.class);
+
+    private final MonitoringTargetRegistry registry;
+    private final PerformanceMetricsCollector collector;
+    private final ExecutorService workers;
+
+    @Autowired
+    public MultiTargetCollector(MonitoringTargetRegistry registry,
+                                PerformanceMetricsCollector collector,
+                                @Value("${performance.targets.collector-threads:8}") int threads) {
+        this.registry = registry;
+        this.collector = collector;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "target-collector-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${performance.metrics.sampler.interval-ms:10000}")
+    public void collectAll() {
+        for (MonitoringTarget target : registry.all()) {
+            if (!target.tryStartCollection()) {
+                continue;
+            }
+            workers.execute(() -> {
+                try {
+                    target.sample(collector);
+                } catch (Exception e) {
+                    logger.warn("Sampling target " + target.getId() + " failed: " + e.getMessage());
+                } finally {
+                    target.endCollection();
+                }
+            });
+        }
+    }
+}
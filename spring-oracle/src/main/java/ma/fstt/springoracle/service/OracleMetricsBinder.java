@@ -0,0 +1,156 @@
+package ma.fstt.springoracle.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import ma.fstt.springoracle.model.PerformanceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Micrometer view of the instance, scraped at /actuator/prometheus.
+ * <p>
+ * Every meter reads state that background jobs already keep in memory (the metrics sampler, the
+ * ASH window, the write-behind queue), so a scrape never runs a query against Oracle. Data Guard
+ * lag is not part of the regular sample and is refreshed here on its own schedule.
+ */
+@Component
+public class OracleMetricsBinder implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(OracleMetricsBinder.class);
+    private static final double MB = 1024 * 1024;
+
+    private static final String DATAGUARD_LAG_SQL = """
+            SELECT name,
+                   EXTRACT(DAY FROM lag) * 86400 + EXTRACT(HOUR FROM lag) * 3600
+                   + EXTRACT(MINUTE FROM lag) * 60 + EXTRACT(SECOND FROM lag) AS lag_seconds
+            FROM (
+                SELECT name, TO_DSINTERVAL(value) AS lag
+                FROM v$dataguard_stats
+                WHERE name IN ('transport lag', 'apply lag') AND value IS NOT NULL
+            )
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PerformanceMetricsSampler metricsSampler;
+
+    @Autowired
+    private PerformanceMetricsWriter metricsWriter;
+
+    @Autowired
+    private MetricsStreamBroadcaster streamBroadcaster;
+
+    @Autowired
+    private AshCollector ashCollector;
+
+    private volatile double transportLagSeconds = Double.NaN;
+    private volatile double applyLagSeconds = Double.NaN;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        sampleGauge(registry, "oracle.cpu.usage", "percent", "Database CPU usage of the host CPUs",
+                PerformanceMetrics::getCpuUsagePercent, 1);
+        sampleGauge(registry, "oracle.memory.sga", "bytes", "Allocated SGA",
+                PerformanceMetrics::getMemoryUsageMB, MB);
+        sampleGauge(registry, "oracle.memory.pga", "bytes", "Allocated PGA",
+                PerformanceMetrics::getPgaUsageMB, MB);
+        sampleGauge(registry, "oracle.buffer.cache.hit.ratio", "percent", "Buffer cache hit ratio over the last interval",
+                PerformanceMetrics::getBufferCacheHitRatio, 1);
+        sampleGauge(registry, "oracle.io.requests", "requests per second", "Physical read and write IO requests",
+                PerformanceMetrics::getIoOperationsPerSecond, 1);
+
+        Gauge.builder("oracle.sessions.active", this, OracleMetricsBinder::activeSessions)
+                .description("Active sessions in the latest ASH sample")
+                .baseUnit("sessions")
+                .register(registry);
+        Gauge.builder("oracle.dataguard.lag", this, binder -> binder.transportLagSeconds)
+                .tag("type", "transport")
+                .description("Data Guard lag reported by v$dataguard_stats")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("oracle.dataguard.lag", this, binder -> binder.applyLagSeconds)
+                .tag("type", "apply")
+                .description("Data Guard lag reported by v$dataguard_stats")
+                .baseUnit("seconds")
+                .register(registry);
+
+        FunctionTimer.builder("oracle.metrics.collection", metricsSampler,
+                        PerformanceMetricsSampler::getCollectionCount,
+                        PerformanceMetricsSampler::getCollectionNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent collecting a metrics sample")
+                .register(registry);
+        FunctionCounter.builder("oracle.metrics.collection.failures", metricsSampler,
+                        PerformanceMetricsSampler::getFailureCount)
+                .register(registry);
+        FunctionCounter.builder("oracle.ash.rows.loaded", ashCollector, AshCollector::rowsLoaded)
+                .description("ASH rows copied into the in-memory window")
+                .register(registry);
+        writerCounter(registry, "written");
+        writerCounter(registry, "dropped");
+        writerCounter(registry, "failed");
+        Gauge.builder("oracle.metrics.writer.queued", metricsWriter, writer -> writer.getStats().get("queued"))
+                .register(registry);
+        Gauge.builder("oracle.metrics.stream.subscribers", streamBroadcaster,
+                        broadcaster -> broadcaster.getStats().get("subscribers"))
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${performance.metrics.dataguard.refresh-ms:30000}")
+    public void refreshDataGuardLag() {
+        double transport = Double.NaN;
+        double apply = Double.NaN;
+        try {
+            for (Map<String, Object> row : jdbcTemplate.queryForList(DATAGUARD_LAG_SQL)) {
+                double seconds = ((Number) row.get("LAG_SECONDS")).doubleValue();
+                if ("transport lag".equals(row.get("NAME"))) {
+                    transport = seconds;
+                } else {
+                    apply = seconds;
+                }
+            }
+        } catch (Exception e) {
+            // Not a Data Guard configuration, or v$dataguard_stats is not readable
+            logger.debug("Data Guard lag unavailable: " + e.getMessage());
+        }
+        transportLagSeconds = transport;
+        applyLagSeconds = apply;
+    }
+
+    private void sampleGauge(MeterRegistry registry, String name, String unit, String description,
+                             Function<PerformanceMetrics, Double> value, double scale) {
+        Gauge.builder(name, metricsSampler, sampler -> {
+                    PerformanceMetrics latest = sampler.peek();
+                    Double current = latest != null ? value.apply(latest) : null;
+                    return current != null ? current * scale : Double.NaN;
+                })
+                .description(description)
+                .baseUnit(unit)
+                .register(registry);
+    }
+
+    private void writerCounter(MeterRegistry registry, String stat) {
+        FunctionCounter.builder("oracle.metrics.writer." + stat, metricsWriter, writer -> writer.getStats().get(stat))
+                .register(registry);
+    }
+
+    // Sessions in the newest ASH sample, or none once ASH has stopped sampling anything
+    private double activeSessions() {
+        if (!ashCollector.isActive()) {
+            return 0;
+        }
+        long lastSampleTime = ashCollector.window().lastSampleTime();
+        return ashCollector.window().read(reader -> reader.size() - reader.firstRowAtOrAfter(lastSampleTime));
+    }
+}
@@ -0,0 +1,213 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.model.PerformanceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads one metrics snapshot from the instance. Does not persist anything,
+ * callers decide what to do with the sample.
+ * <p>
+ * Everything is fetched with a single statement and a fetch size large enough to hold
+ * every row, so a sample costs a single network round trip. CPU, IO and buffer cache
+ * figures are computed from counter deltas between two consecutive calls, so the first
+ * snapshot after startup (or after an instance restart) leaves them empty.
+ */
+@Component
+public class PerformanceMetricsCollector {
+    static final String DB_CPU = "DB CPU";
+    static final String BACKGROUND_CPU = "background cpu time";
+    static final String PHYSICAL_READ_REQUESTS = "physical read total IO requests";
+    static final String PHYSICAL_WRITE_REQUESTS = "physical write total IO requests";
+    static final String PHYSICAL_READS = "physical reads";
+    static final String DB_BLOCK_GETS = "db block gets";
+    static final String CONSISTENT_GETS = "consistent gets";
+
+    // Row sources of the collection query
+    private static final int CPU_COUNT = 1;
+    private static final int STARTUP_TIME = 2;
+    private static final int SGA_BYTES = 3;
+    private static final int PGA_BYTES = 4;
+    private static final int SYSSTAT = 5;
+    private static final int TIME_MODEL = 6;
+
+    private static final double MB = 1024 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CounterDeltaEngine deltaEngine;
+    private final String collectionSql;
+    private final String[] collectionParams;
+    private final int expectedRows;
+    private final Map<String, Integer> sysstatIndexes = new HashMap<>();
+    private final Map<String, Integer> timeModelIndexes = new HashMap<>();
+
+    @Autowired
+    public PerformanceMetricsCollector(
+            JdbcTemplate jdbcTemplate,
+            @Value("${performance.metrics.delta.sysstat}") String[] sysstatCounters,
+            @Value("${performance.metrics.delta.time-model}") String[] timeModelCounters) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        List<String> counters = new ArrayList<>();
+        for (String name : sysstatCounters) {
+            sysstatIndexes.put(name.trim(), counters.size());
+            counters.add(name.trim());
+        }
+        for (String name : timeModelCounters) {
+            timeModelIndexes.put(name.trim(), counters.size());
+            counters.add(name.trim());
+        }
+        this.deltaEngine = new CounterDeltaEngine(counters);
+        this.collectionParams = counters.toArray(new String[0]);
+        this.collectionSql = buildCollectionSql(sysstatIndexes.size(), timeModelIndexes.size());
+        this.expectedRows = counters.size() + 4;
+    }
+
+    // One row per gauge and per counter; the startup time is what detects instance restarts
+    private static String buildCollectionSql(int sysstatCount, int timeModelCount) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT 1 AS source, CAST(NULL AS VARCHAR2(64)) AS name, TO_NUMBER(value) AS value
+            FROM v$parameter WHERE name = 'cpu_count'
+            UNION ALL
+            SELECT 2, NULL, (startup_time - DATE '1970-01-01') * 86400 FROM v$instance
+            UNION ALL
+            SELECT 3, NULL, SUM(bytes) FROM v$sgastat
+            UNION ALL
+            SELECT 4, NULL, value FROM v$pgastat WHERE name = 'total PGA allocated'
+            """);
+        if (sysstatCount > 0) {
+            sql.append("""
+                UNION ALL
+                SELECT 5, name, value FROM v$sysstat WHERE name IN (%s)
+                """.formatted(placeholders(sysstatCount)));
+        }
+        if (timeModelCount > 0) {
+            sql.append("""
+                UNION ALL
+                SELECT 6, stat_name, value FROM v$sys_time_model WHERE stat_name IN (%s)
+                """.formatted(placeholders(timeModelCount)));
+        }
+        return sql.toString();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public PerformanceMetrics collect() {
+        return collect(jdbcTemplate, deltaEngine);
+    }
+
+    // Collects from another instance; each instance needs its own delta engine
+    public PerformanceMetrics collect(JdbcTemplate template, CounterDeltaEngine engine) {
+        try {
+            RawSample sample = fetch(template);
+            CounterDeltaEngine.Rates rates = engine.update(sample.counters, sample.sampleNanos, sample.startupTime);
+            return toMetrics(sample, rates);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to collect performance metrics", e);
+        }
+    }
+
+    public CounterDeltaEngine newDeltaEngine() {
+        return new CounterDeltaEngine(Arrays.asList(collectionParams));
+    }
+
+    // Runs the collection query without touching the delta state, also used for benchmarking
+    RawSample fetch() {
+        return fetch(jdbcTemplate);
+    }
+
+    private RawSample fetch(JdbcTemplate template) {
+        RawSample sample = new RawSample(collectionParams.length);
+        sample.sampleNanos = System.nanoTime();
+        template.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(collectionSql);
+            ps.setFetchSize(expectedRows);
+            for (int i = 0; i < collectionParams.length; i++) {
+                ps.setString(i + 1, collectionParams[i]);
+            }
+            return ps;
+        }, rs -> {
+            double value = rs.getDouble(3);
+            switch (rs.getInt(1)) {
+                case CPU_COUNT -> sample.cpuCount = value;
+                case STARTUP_TIME -> sample.startupTime = value;
+                case SGA_BYTES -> sample.sgaBytes = value;
+                case PGA_BYTES -> sample.pgaBytes = value;
+                case SYSSTAT -> sample.counters[sysstatIndexes.get(rs.getString(2))] = value;
+                case TIME_MODEL -> sample.counters[timeModelIndexes.get(rs.getString(2))] = value;
+                default -> { }
+            }
+        });
+        return sample;
+    }
+
+    private PerformanceMetrics toMetrics(RawSample sample, CounterDeltaEngine.Rates rates) {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+
+        // CPU Usage as percentage of the available CPUs (time model values are microseconds)
+        double cpuSecondsPerSecond = (rate(rates, DB_CPU) + rate(rates, BACKGROUND_CPU)) / 1_000_000;
+        metrics.setCpuUsagePercent(rounded(cpuSecondsPerSecond / sample.cpuCount * 100));
+
+        // Memory Usage (SGA + PGA)
+        metrics.setMemoryUsageMB(rounded(sample.sgaBytes / MB));
+        metrics.setPgaUsageMB(rounded(sample.pgaBytes / MB));
+
+        // Buffer Cache Hit Ratio over the last interval
+        double logicalReads = rate(rates, DB_BLOCK_GETS) + rate(rates, CONSISTENT_GETS);
+        metrics.setBufferCacheHitRatio(logicalReads > 0
+                ? rounded((1 - rate(rates, PHYSICAL_READS) / logicalReads) * 100)
+                : null);
+
+        // IO Operations per Second over the last interval
+        metrics.setIoOperationsPerSecond(rounded(
+                rate(rates, PHYSICAL_READ_REQUESTS) + rate(rates, PHYSICAL_WRITE_REQUESTS)));
+
+        metrics.setTimestamp(LocalDateTime.now());
+        return metrics;
+    }
+
+    public CounterDeltaEngine.Rates latestRates() {
+        return deltaEngine.latest();
+    }
+
+    private double rate(CounterDeltaEngine.Rates rates, String counter) {
+        return rates.get(deltaEngine.indexOf(counter));
+    }
+
+    private static Double rounded(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        }
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Raw values read by one collection query, NaN where a row was missing.
+     */
+    static final class RawSample {
+        final double[] counters;
+        long sampleNanos;
+        double cpuCount = Double.NaN;
+        double startupTime = Double.NaN;
+        double sgaBytes = Double.NaN;
+        double pgaBytes = Double.NaN;
+
+        RawSample(int counterCount) {
+            counters = new double[counterCount];
+            Arrays.fill(counters, Double.NaN);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.model.PerformanceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples the instance once per interval and keeps the latest samples in memory,
+ * so the number of dashboards polling /api/performance/metrics no longer
+ * multiplies the load on the monitored database.
+ */
+@Component
+public class PerformanceMetricsSampler {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceMetricsSampler.class);
+
+    private final PerformanceMetricsCollector collector;
+    private final PerformanceMetricsWriter metricsWriter;
+    private final MetricsStreamBroadcaster broadcaster;
+    private final MetricsTimeSeriesStore timeSeriesStore;
+    private final MetricsRingBuffer buffer;
+    private final boolean persist;
+    private final AtomicLong collections = new AtomicLong();
+    private final AtomicLong collectionNanos = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public PerformanceMetricsSampler(PerformanceMetricsCollector collector,
+                                     PerformanceMetricsWriter metricsWriter,
+                                     MetricsStreamBroadcaster broadcaster,
+                                     MetricsTimeSeriesStore timeSeriesStore,
+                                     @Value("${performance.metrics.buffer.capacity:360}") int capacity,
+                                     @Value("${performance.metrics.sampler.persist:true}") boolean persist) {
+        this.collector = collector;
+        this.metricsWriter = metricsWriter;
+        this.broadcaster = broadcaster;
+        this.timeSeriesStore = timeSeriesStore;
+        this.buffer = new MetricsRingBuffer(capacity);
+        this.persist = persist;
+    }
+
+    @Scheduled(fixedDelayString = "${performance.metrics.sampler.interval-ms:10000}")
+    public void scheduledSample() {
+        try {
+            sample();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("Metrics sampling failed: " + e.getMessage());
+        }
+    }
+
+    // Synchronized so the ring buffer only ever sees one writer
+    public synchronized PerformanceMetrics sample() {
+        long start = System.nanoTime();
+        PerformanceMetrics metrics = collector.collect();
+        collectionNanos.addAndGet(System.nanoTime() - start);
+        collections.incrementAndGet();
+        buffer.publish(metrics);
+        broadcaster.publish(metrics);
+        timeSeriesStore.append(metrics);
+        if (persist && !metricsWriter.submit(metrics)) {
+            logger.warn("Metrics write queue is full, sample dropped");
+        }
+        return metrics;
+    }
+
+    // Only touches the database before the first scheduled sample has landed
+    public PerformanceMetrics latest() {
+        PerformanceMetrics latest = buffer.latest();
+        if (latest != null) {
+            return latest;
+        }
+        synchronized (this) {
+            latest = buffer.latest();
+            return latest != null ? latest : sample();
+        }
+    }
+
+    // Latest sample or null, never touches the database
+    public PerformanceMetrics peek() {
+        return buffer.latest();
+    }
+
+    public long getCollectionCount() {
+        return collections.get();
+    }
+
+    public long getCollectionNanos() {
+        return collectionNanos.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public List<PerformanceMetrics> recent(int count) {
+        return buffer.recent(count);
+    }
+}
@@ -0,0 +1,178 @@
+package ma.fstt.springoracle.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.model.PerformanceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence for metrics samples.
+ * <p>
+ * Samples are queued without blocking the caller and a single writer thread inserts them
+ * in JDBC batches, flushing when a batch is full or when the oldest queued sample has
+ * waited for the flush interval. When the database cannot keep up the queue fills and new
+ * samples are dropped and counted rather than stalling the sampler. On shutdown the queue
+ * is drained before the data source goes away.
+ */
+@Component
+public class PerformanceMetricsWriter {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceMetricsWriter.class);
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO performance_metrics
+                (cpu_usage_percent, memory_usagemb, buffer_cache_hit_ratio,
+                 io_operations_per_second, pga_usagemb, timestamp)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<PerformanceMetrics> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long shutdownTimeoutMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @Autowired
+    public PerformanceMetricsWriter(JdbcTemplate jdbcTemplate,
+                                    @Value("${performance.metrics.writer.queue-capacity:1000}") int queueCapacity,
+                                    @Value("${performance.metrics.writer.batch-size:50}") int batchSize,
+                                    @Value("${performance.metrics.writer.flush-interval-ms:5000}") long flushIntervalMs,
+                                    @Value("${performance.metrics.writer.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::run, "metrics-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            logger.warn("Metrics writer stopped with " + queue.size() + " samples still queued");
+        }
+    }
+
+    // Never blocks: returns false and counts the sample as dropped when the queue is full
+    public boolean submit(PerformanceMetrics metrics) {
+        if (queue.offer(metrics)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("enqueued", enqueued.get());
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        stats.put("queued", (long) queue.size());
+        return stats;
+    }
+
+    private void run() {
+        List<PerformanceMetrics> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+        try {
+            // Short polls instead of interrupts: an interrupt could close the JDBC socket mid-batch
+            while (running) {
+                PerformanceMetrics next = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    if (batch.isEmpty()) {
+                        deadline = System.nanoTime() + flushIntervalNanos;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                if (!batch.isEmpty() && (batch.size() >= batchSize || System.nanoTime() - deadline >= 0)) {
+                    flush(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Drain whatever is still queued before the data source is closed
+        queue.drainTo(batch);
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            flush(new ArrayList<>(batch.subList(from, Math.min(from + batchSize, batch.size()))));
+        }
+    }
+
+    private void flush(List<PerformanceMetrics> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            logger.error("Failed to write " + batch.size() + " metrics samples: " + e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void bind(PreparedStatement ps, PerformanceMetrics metrics) throws SQLException {
+        setDouble(ps, 1, metrics.getCpuUsagePercent());
+        setDouble(ps, 2, metrics.getMemoryUsageMB());
+        setDouble(ps, 3, metrics.getBufferCacheHitRatio());
+        setDouble(ps, 4, metrics.getIoOperationsPerSecond());
+        setDouble(ps, 5, metrics.getPgaUsageMB());
+        ps.setTimestamp(6, Timestamp.valueOf(metrics.getTimestamp()));
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+}
@@ -1,6 +1,19 @@
 package ma.fstt.springoracle.service;
 
+import ma.fstt.springoracle.dto.AshTopActivityDTO;
+import ma.fstt.springoracle.dto.AwrDiffReportDTO;
+import ma.fstt.springoracle.dto.CollectionBenchmarkDTO;
+import ma.fstt.springoracle.dto.MetricsHistoryDTO;
+import ma.fstt.springoracle.dto.MonitoringTargetDTO;
+import ma.fstt.springoracle.dto.MonitoringTargetStatusDTO;
+import ma.fstt.springoracle.dto.RouteLatencyDTO;
+import ma.fstt.springoracle.dto.SqlStatementStatsDTO;
 import ma.fstt.springoracle.model.PerformanceMetrics;
+import ma.fstt.springoracle.service.MetricsExportService.ExportFormat;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -9,7 +22,59 @@ public interface PerformanceMonitoringService {
 
     public List<Map<String, Object>> getAWRReport(LocalDateTime startTime, LocalDateTime endTime) ;
 
+    public List<Map<String, Object>> getAWRReport(String target, LocalDateTime startTime, LocalDateTime endTime) ;
+
+    public AwrDiffReportDTO getAwrDiff(long baseBeginSnap, long baseEndSnap, long compareBeginSnap, long compareEndSnap, int limit) ;
+
+    public AwrDiffReportDTO getAwrDiff(String target, long baseBeginSnap, long baseEndSnap, long compareBeginSnap, long compareEndSnap, int limit) ;
+
+    public Map<String, Long> getAwrCacheStats() ;
+
     public List<Map<String, Object>> getASHReport() ;
 
+    public List<Map<String, Object>> getASHReport(String target) ;
+
+    public AshTopActivityDTO getAshTopActivity(LocalDateTime from, LocalDateTime to, int limit, int bucketSeconds) ;
+
     public PerformanceMetrics getRealTimeMetrics() ;
+
+    public PerformanceMetrics getRealTimeMetrics(String target) ;
+
+    public List<PerformanceMetrics> getRecentMetrics(int count) ;
+
+    public List<PerformanceMetrics> getRecentMetrics(String target, int count) ;
+
+    public List<MonitoringTargetStatusDTO> getTargets() ;
+
+    public MonitoringTargetStatusDTO registerTarget(MonitoringTargetDTO target) ;
+
+    public void removeTarget(String id) ;
+
+    public Map<String, Double> getCounterRates() ;
+
+    public Map<String, Double> getCounterRates(String target) ;
+
+    public CollectionBenchmarkDTO benchmarkMetricsCollection(int iterations) ;
+
+    public Map<String, Long> getMetricsWriterStats() ;
+
+    public MetricsHistoryDTO getMetricsHistory(LocalDateTime start, LocalDateTime end) ;
+
+    public List<PerformanceMetrics> getStoredMetrics(LocalDateTime start, LocalDateTime end) ;
+
+    public MetricsHistoryDTO getStoredMetricsDownsampled(LocalDateTime start, LocalDateTime end, long bucketSeconds) ;
+
+    public Map<String, Object> getMetricsStoreStats() ;
+
+    public void exportMetrics(LocalDateTime start, LocalDateTime end, ExportFormat format, OutputStream out) throws IOException ;
+
+    public SseEmitter streamMetrics() ;
+
+    public Map<String, Long> getMetricsStreamStats() ;
+
+    public List<RouteLatencyDTO> getRouteLatencies() ;
+
+    public List<SqlStatementStatsDTO> getTopStatements(int limit, String orderBy) ;
+
+    public Map<String, Object> getConnectionWaitStats() ;
 }
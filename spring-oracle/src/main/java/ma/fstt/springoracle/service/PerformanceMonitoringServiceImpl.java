@@ -2,19 +2,36 @@ package ma.fstt.springoracle.service;
 
 
 import com.sun.management.OperatingSystemMXBean;
+import ma.fstt.springoracle.dto.AshTopActivityDTO;
+import ma.fstt.springoracle.dto.AwrDiffReportDTO;
+import ma.fstt.springoracle.dto.CollectionBenchmarkDTO;
+import ma.fstt.springoracle.dto.MetricsHistoryDTO;
+import ma.fstt.springoracle.dto.MonitoringTargetDTO;
+import ma.fstt.springoracle.dto.MonitoringTargetStatusDTO;
+import ma.fstt.springoracle.dto.RouteLatencyDTO;
+import ma.fstt.springoracle.dto.SqlStatementStatsDTO;
 import ma.fstt.springoracle.model.PerformanceMetrics;
-import ma.fstt.springoracle.repository.PerformanceMetricsRepository;
+import ma.fstt.springoracle.service.MetricsExportService.ExportFormat;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 //import java.lang.management.ManagementFactory;
 import java.lang.management.ManagementFactory;
 //import java.lang.management.OperatingSystemMXBean;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,34 +41,90 @@ public class PerformanceMonitoringServiceImpl implements PerformanceMonitoringSe
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private PerformanceMetricsRepository metricsRepository;
+    private PerformanceMetricsSampler metricsSampler;
+
+    @Autowired
+    private PerformanceMetricsCollector metricsCollector;
+
+    @Autowired
+    private MetricsCollectionBenchmark collectionBenchmark;
+
+    @Autowired
+    private PerformanceMetricsWriter metricsWriter;
+
+    @Autowired
+    private MetricsRollupService rollupService;
+
+    @Autowired
+    private MetricsExportService exportService;
+
+    @Autowired
+    private MetricsStreamBroadcaster streamBroadcaster;
+
+    @Autowired
+    private AshCollector ashCollector;
+
+    @Autowired
+    private MetricsTimeSeriesStore timeSeriesStore;
+
+    @Autowired
+    private AwrEngine awrEngine;
+
+    @Autowired
+    private MonitoringTargetRegistry targetRegistry;
+
+    @Autowired
+    private RouteLatencyRecorder routeLatencyRecorder;
+
+    @Autowired
+    private SqlStatementStatistics sqlStatistics;
+
+    @Autowired
+    private AwrDiffEngine awrDiffEngine;
+
+    @Autowired
+    private AshAggregationEngine ashAggregationEngine;
+
+    @Value("${performance.ash.target-max-rows:10000}")
+    private int targetAshMaxRows;
 
     // Get AWR Report
     public List<Map<String, Object>> getAWRReport(LocalDateTime startTime, LocalDateTime endTime) {
-        String sql = """
-        SELECT 
-            s.snap_id,
-            s.begin_interval_time,
-            s.end_interval_time,
-            ROUND(
-                (SELECT value FROM v$sysstat 
-                 WHERE name = 'CPU used by this session') / 100, 2
-            ) as cpu_usage_percent,
-            ROUND(
-                (SELECT SUM(bytes)/(1024*1024) 
-                 FROM v$sgastat), 2
-            ) as memory_usage_mb,
-            ROUND(
-                (SELECT value FROM v$sysstat 
-                 WHERE name = 'physical reads'), 2
-            ) as io_requests_per_sec
-        FROM dba_hist_snapshot s
-        WHERE s.begin_interval_time BETWEEN ? AND ?
-        ORDER BY s.snap_id
-    """;
+        return awrReport(awrEngine, startTime, endTime);
+    }
 
+    public List<Map<String, Object>> getAWRReport(String target, LocalDateTime startTime, LocalDateTime endTime) {
+        if (MonitoringTargetRegistry.isPrimary(target)) {
+            return getAWRReport(startTime, endTime);
+        }
+        return awrReport(targetRegistry.get(target).getAwrEngine(), startTime, endTime);
+    }
+
+    private List<Map<String, Object>> awrReport(AwrEngine awrEngine, LocalDateTime startTime, LocalDateTime endTime) {
         try {
-            return jdbcTemplate.queryForList(sql, startTime, endTime);
+            int dbCpu = awrEngine.indexOf(PerformanceMetricsCollector.DB_CPU);
+            int backgroundCpu = awrEngine.indexOf(PerformanceMetricsCollector.BACKGROUND_CPU);
+            int dbTime = awrEngine.indexOf("DB time");
+            int readRequests = awrEngine.indexOf(PerformanceMetricsCollector.PHYSICAL_READ_REQUESTS);
+            int writeRequests = awrEngine.indexOf(PerformanceMetricsCollector.PHYSICAL_WRITE_REQUESTS);
+
+            List<Map<String, Object>> report = new ArrayList<>();
+            for (AwrSnapshotDelta snapshot : awrEngine.getDeltas(startTime, endTime)) {
+                double elapsed = snapshot.getElapsedSeconds();
+                double cpuSeconds = (snapshot.delta(dbCpu) + snapshot.delta(backgroundCpu)) / 1_000_000.0;
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("SNAP_ID", snapshot.getSnapId());
+                row.put("BEGIN_INTERVAL_TIME", snapshot.getBeginIntervalTime());
+                row.put("END_INTERVAL_TIME", snapshot.getEndIntervalTime());
+                row.put("CPU_USAGE_PERCENT", round(cpuSeconds / elapsed / snapshot.getCpuCount() * 100));
+                row.put("MEMORY_USAGE_MB", round(snapshot.getSgaBytes() / (1024 * 1024)));
+                row.put("IO_REQUESTS_PER_SEC", round(snapshot.perSecond(readRequests) + snapshot.perSecond(writeRequests)));
+                row.put("AVERAGE_ACTIVE_SESSIONS", round(snapshot.delta(dbTime) / 1_000_000.0 / elapsed));
+                row.put("INSTANCE_RESTARTED", snapshot.isInstanceRestarted());
+                report.add(row);
+            }
+            return report;
         } catch (Exception e) {
 //            log.error("Error retrieving AWR report: ", e);
             System.out.println(e.getMessage());
@@ -59,85 +132,201 @@ public class PerformanceMonitoringServiceImpl implements PerformanceMonitoringSe
         }
     }
 
-    // Get ASH Report
+    private static Double round(double value) {
+        return Double.isFinite(value) ? Math.round(value * 100) / 100.0 : null;
+    }
+
+    // Compare two snapshot ranges and rank what grew the most
+    public AwrDiffReportDTO getAwrDiff(long baseBeginSnap, long baseEndSnap, long compareBeginSnap, long compareEndSnap, int limit) {
+        return awrDiffEngine.compare(baseBeginSnap, baseEndSnap, compareBeginSnap, compareEndSnap, limit);
+    }
+
+    public AwrDiffReportDTO getAwrDiff(String target, long baseBeginSnap, long baseEndSnap, long compareBeginSnap, long compareEndSnap, int limit) {
+        if (MonitoringTargetRegistry.isPrimary(target)) {
+            return getAwrDiff(baseBeginSnap, baseEndSnap, compareBeginSnap, compareEndSnap, limit);
+        }
+        return targetRegistry.get(target).getAwrDiffEngine()
+                .compare(baseBeginSnap, baseEndSnap, compareBeginSnap, compareEndSnap, limit);
+    }
+
+    // Get AWR delta cache counters (hits, misses, cached snapshots)
+    public Map<String, Long> getAwrCacheStats() {
+        Map<String, Long> stats = awrEngine.getCacheStats();
+        stats.put("cachedDiffPeriods", (long) awrDiffEngine.getCachedPeriods());
+        return stats;
+    }
+
+    // Get ASH Report (answered from the incrementally collected in-memory window)
     public List<Map<String, Object>> getASHReport() {
+        // Last hour on the database clock: sample times are database local time, not the JVM's
+        long since = ashCollector.databaseTimeMillis() - 60 * 60 * 1000L;
+        if (ashCollector.window().lastSampleTime() < since) {
+            return new ArrayList<>();
+        }
+        return ashCollector.window().read(reader -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int row = reader.firstRowAtOrAfter(since); row < reader.size(); row++) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("SESSION_ID", reader.sessionId(row));
+                entry.put("SQL_ID", reader.string(reader.sqlIdRef(row)));
+                entry.put("EVENT", reader.string(reader.eventRef(row)));
+                entry.put("WAIT_CLASS", reader.string(reader.waitClassRef(row)));
+                entry.put("SESSION_STATE", reader.onCpu(row) ? "ON CPU" : "WAITING");
+                entry.put("TIME_WAITED", reader.timeWaited(row));
+                rows.add(entry);
+            }
+            return rows;
+        });
+    }
+
+    // Targets have no collected ASH window, the newest rows of the last hour are read from the target itself
+    public List<Map<String, Object>> getASHReport(String target) {
+        if (MonitoringTargetRegistry.isPrimary(target)) {
+            return getASHReport();
+        }
         String sql = """
-            SELECT session_id, sql_id, event, wait_class,
-                   session_state, time_waited
-            FROM v$active_session_history
-            WHERE sample_time > SYSDATE - 1/24
+            SELECT session_id, sql_id, event, wait_class, session_state, time_waited
+            FROM (
+                SELECT sample_id, session_id, sql_id, event, wait_class, session_state, time_waited
+                FROM v$active_session_history
+                WHERE sample_time > SYSTIMESTAMP - INTERVAL '1' HOUR
+                ORDER BY sample_id DESC
+                FETCH FIRST ? ROWS ONLY
+            )
+            ORDER BY sample_id
         """;
-        return jdbcTemplate.queryForList(sql);
+        try {
+            return targetRegistry.get(target).getCollectionTemplate().queryForList(sql, targetAshMaxRows);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("ASH of target " + target + " could not be read: " + e.getMessage(), e);
+        }
+    }
+
+    // Get top SQL, waits and sessions plus average active sessions over a range of the ASH window
+    public AshTopActivityDTO getAshTopActivity(LocalDateTime from, LocalDateTime to, int limit, int bucketSeconds) {
+        // Without bounds, the last hour on the database clock, like getASHReport
+        LocalDateTime end = to != null ? to
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(ashCollector.databaseTimeMillis()), ZoneId.systemDefault());
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        return ashAggregationEngine.topActivity(start, end, limit, bucketSeconds);
     }
 
-    // Get Real-time Metrics
+    // Get Real-time Metrics (served from the sampler's in-memory buffer)
     public PerformanceMetrics getRealTimeMetrics() {
-        PerformanceMetrics metrics = new PerformanceMetrics();
-        try {
-            // CPU Usage as percentage
-            String cpuSql = """
-            SELECT ROUND(
-                (SELECT value FROM v$sysstat 
-                 WHERE name = 'CPU used by this session') /
-                (SELECT value * 100 FROM v$parameter 
-                 WHERE name = 'cpu_count'),
-                2) as cpu_percentage
-            FROM dual
-        """;
-            Double cpuUsage = jdbcTemplate.queryForObject(cpuSql, Double.class);
-            metrics.setCpuUsagePercent(cpuUsage);
+        return metricsSampler.latest();
+    }
 
-            // Memory Usage (SGA + PGA)
-            String sgaSql = """
-            SELECT ROUND(SUM(bytes)/(1024*1024), 2) as sga_mb 
-            FROM v$sgastat
-        """;
-            Double sgaUsage = jdbcTemplate.queryForObject(sgaSql, Double.class);
+    public PerformanceMetrics getRealTimeMetrics(String target) {
+        if (MonitoringTargetRegistry.isPrimary(target)) {
+            return getRealTimeMetrics();
+        }
+        // Never sampled on the request thread: an unreachable target would hold it for the whole timeout
+        PerformanceMetrics latest = targetRegistry.get(target).getBuffer().latest();
+        if (latest == null) {
+            throw new IllegalStateException("No sample collected yet for target " + target);
+        }
+        return latest;
+    }
 
-            String pgaSql = """
-            SELECT ROUND(value/(1024*1024), 2) as pga_mb 
-            FROM v$pgastat 
-            WHERE name = 'total PGA allocated'
-        """;
-            Double pgaUsage = jdbcTemplate.queryForObject(pgaSql, Double.class);
-
-            metrics.setMemoryUsageMB(sgaUsage);
-            metrics.setPgaUsageMB(pgaUsage);
-
-            // Buffer Cache Hit Ratio
-            String bufferCacheSql = """
-            SELECT ROUND(
-                (1 - (phy.value / (cur.value + con.value))) * 100,
-                2) as buffer_cache_hit_ratio
-            FROM v$sysstat cur, v$sysstat con, v$sysstat phy
-            WHERE cur.name = 'db block gets'
-            AND con.name = 'consistent gets'
-            AND phy.name = 'physical reads'
-        """;
-            Double bufferCacheHitRatio = jdbcTemplate.queryForObject(bufferCacheSql, Double.class);
-            metrics.setBufferCacheHitRatio(bufferCacheHitRatio);
-
-            // IO Operations per Second
-            String ioSql = """
-            SELECT ROUND(
-                value / 
-                (SYSDATE - startup_time) * 86400,
-                2) as io_per_second
-            FROM v$sysstat, v$instance
-            WHERE name = 'physical reads'
-        """;
-            Double ioRate = jdbcTemplate.queryForObject(ioSql, Double.class);
-            metrics.setIoOperationsPerSecond(ioRate);
+    // Get the last N samples, oldest first
+    public List<PerformanceMetrics> getRecentMetrics(int count) {
+        return metricsSampler.recent(count);
+    }
 
-            metrics.setTimestamp(LocalDateTime.now());
-            return metricsRepository.save(metrics);
+    public List<PerformanceMetrics> getRecentMetrics(String target, int count) {
+        if (MonitoringTargetRegistry.isPrimary(target)) {
+            return getRecentMetrics(count);
+        }
+        return targetRegistry.get(target).getBuffer().recent(count);
+    }
 
-        } catch (Exception e) {
-            System.out.println(e);
-            throw new RuntimeException("Failed to collect performance metrics", e);
+    // Get registered monitoring targets with their collection health
+    public List<MonitoringTargetStatusDTO> getTargets() {
+        List<MonitoringTargetStatusDTO> targets = new ArrayList<>();
+        for (MonitoringTarget target : targetRegistry.all()) {
+            targets.add(target.status());
         }
+        return targets;
     }
 
+    public MonitoringTargetStatusDTO registerTarget(MonitoringTargetDTO target) {
+        return targetRegistry.register(target).status();
+    }
 
-}
+    public void removeTarget(String id) {
+        targetRegistry.unregister(id);
+    }
+
+    // Get per-second rates of the tracked counters over the last sampling interval
+    public Map<String, Double> getCounterRates() {
+        return metricsCollector.latestRates().toMap();
+    }
+
+    public Map<String, Double> getCounterRates(String target) {
+        if (MonitoringTargetRegistry.isPrimary(target)) {
+            return getCounterRates();
+        }
+        CounterDeltaEngine.Rates rates = targetRegistry.get(target).latestRates();
+        if (rates.intervalSeconds() == 0) {
+            throw new IllegalStateException("No rates computed yet for target " + target);
+        }
+        return rates.toMap();
+    }
+
+    // Compare the single-statement collector with the previous five-query collection
+    public CollectionBenchmarkDTO benchmarkMetricsCollection(int iterations) {
+        return collectionBenchmark.run(iterations);
+    }
+
+    // Get write-behind queue counters (enqueued, written, dropped, failed...)
+    public Map<String, Long> getMetricsWriterStats() {
+        return metricsWriter.getStats();
+    }
+
+    // Get metrics history from the finest rollup tier that fits the range
+    public MetricsHistoryDTO getMetricsHistory(LocalDateTime start, LocalDateTime end) {
+        return rollupService.getHistory(start, end);
+    }
+
+    // Get samples of a range from the compressed in-memory store, without touching the database
+    public List<PerformanceMetrics> getStoredMetrics(LocalDateTime start, LocalDateTime end) {
+        return timeSeriesStore.scan(start, end);
+    }
+
+    public MetricsHistoryDTO getStoredMetricsDownsampled(LocalDateTime start, LocalDateTime end, long bucketSeconds) {
+        return timeSeriesStore.downsample(start, end, bucketSeconds);
+    }
+
+    public Map<String, Object> getMetricsStoreStats() {
+        return timeSeriesStore.getStats();
+    }
 
+    // Stream raw samples of a range to the given output without loading them into memory
+    public void exportMetrics(LocalDateTime start, LocalDateTime end, ExportFormat format, OutputStream out) throws IOException {
+        exportService.export(start, end, format, out);
+    }
+
+    // Subscribe to live samples; the subscriber gets the latest sample right away
+    public SseEmitter streamMetrics() {
+        List<PerformanceMetrics> latest = metricsSampler.recent(1);
+        return streamBroadcaster.subscribe(latest.isEmpty() ? null : latest.get(0));
+    }
+
+    public Map<String, Long> getMetricsStreamStats() {
+        return streamBroadcaster.getStats();
+    }
+
+    // Get latency percentiles, in-flight and error counts of the application's own endpoints
+    public List<RouteLatencyDTO> getRouteLatencies() {
+        return routeLatencyRecorder.snapshot();
+    }
+
+    // Get the application's own most expensive statements, by fingerprint
+    public List<SqlStatementStatsDTO> getTopStatements(int limit, String orderBy) {
+        return sqlStatistics.top(limit, orderBy);
+    }
+
+    public Map<String, Object> getConnectionWaitStats() {
+        return sqlStatistics.connectionStats();
+    }
+}
@@ -1,6 +1,15 @@
 package ma.fstt.springoracle.service;
 
+import ma.fstt.springoracle.dto.BaselineEvolveDTO;
+import ma.fstt.springoracle.dto.BaselineUsageReportDTO;
+import ma.fstt.springoracle.dto.PlanBaselineDTO;
+import ma.fstt.springoracle.dto.SqlTuningCampaignDTO;
+import ma.fstt.springoracle.dto.SqlTuningJobDTO;
+import ma.fstt.springoracle.dto.StatsGatheringRunDTO;
+import ma.fstt.springoracle.dto.StatsGatheringTaskDTO;
+import ma.fstt.springoracle.model.PlanRegression;
 import ma.fstt.springoracle.model.SlowQuery;
+import ma.fstt.springoracle.model.SqlPlanHistory;
 
 import java.util.List;
 import java.util.Map;
@@ -13,8 +22,63 @@ public interface PerformanceOptimizationService {
 
     public void scheduleStatsGathering(String schemaName) ;
 
+    public List<StatsGatheringTaskDTO> getStaleTables(List<String> schemas, int limit) ;
+
+    public StatsGatheringRunDTO startStatsGathering(List<String> schemas, Integer degree, Integer concurrency,
+                                                    Integer budgetMinutes, int maxTables) ;
+
+    public StatsGatheringRunDTO getStatsGatheringRun(long runId) ;
+
+    public List<StatsGatheringRunDTO> getStatsGatheringRuns() ;
+
+    public StatsGatheringRunDTO cancelStatsGatheringRun(long runId) ;
+
     public List<SlowQuery> identifySlowQueries() ;
 
-    public String optimizeQuery(Long queryId) ;
+    public SqlTuningJobDTO optimizeQuery(Long queryId) ;
+
+    public SqlTuningJobDTO submitTuningJob(Long queryId) ;
+
+    public SqlTuningJobDTO getTuningJob(Long jobId) ;
+
+    public List<SqlTuningJobDTO> getTuningJobs() ;
+
+    public SqlTuningJobDTO cancelTuningJob(Long jobId) ;
+
+    public Map<String, Object> getTuningCacheStats() ;
+
+    public void clearTuningCache() ;
+
+    public SqlTuningCampaignDTO startTuningCampaign(String name, List<Long> queryIds, int limit) ;
+
+    public SqlTuningCampaignDTO getTuningCampaign(Long campaignId) ;
+
+    public List<SqlTuningCampaignDTO> getTuningCampaigns() ;
+
+    public SqlTuningCampaignDTO cancelTuningCampaign(Long campaignId) ;
+
+    public List<PlanRegression> samplePlanHistory() ;
+
+    public List<SqlPlanHistory> getPlanHistory(String sqlId) ;
+
+    public List<PlanRegression> getPlanRegressions(String status) ;
+
+    public PlanRegression resolvePlanRegression(Long regressionId) ;
+
+    public Map<String, Object> loadPlanBaseline(String sqlId, long planHashValue, String source, boolean fixed) ;
+
+    public Map<String, Object> baselineRegression(Long regressionId) ;
+
+    public List<PlanBaselineDTO> getPlanBaselines(String sqlId) ;
+
+    public BaselineEvolveDTO evolvePlanBaseline(String sqlHandle, String planName, boolean accept) ;
+
+    public String acceptPlanBaseline(String sqlHandle, String planName) ;
+
+    public int alterPlanBaseline(String sqlHandle, String planName, Boolean enabled, Boolean fixed) ;
+
+    public int dropPlanBaseline(String sqlHandle, String planName) ;
+
+    public BaselineUsageReportDTO getBaselineUsage(int limit) ;
 
 }
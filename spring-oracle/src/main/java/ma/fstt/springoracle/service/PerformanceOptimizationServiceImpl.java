@@ -2,23 +2,29 @@ package ma.fstt.springoracle.service;
 
 
 import lombok.RequiredArgsConstructor;
+import ma.fstt.springoracle.dto.BaselineEvolveDTO;
+import ma.fstt.springoracle.dto.BaselineUsageReportDTO;
+import ma.fstt.springoracle.dto.PlanBaselineDTO;
+import ma.fstt.springoracle.dto.SqlTuningCampaignDTO;
+import ma.fstt.springoracle.dto.SqlTuningJobDTO;
+import ma.fstt.springoracle.dto.StatsGatheringRunDTO;
+import ma.fstt.springoracle.dto.StatsGatheringTaskDTO;
+import ma.fstt.springoracle.model.PlanRegression;
 import ma.fstt.springoracle.model.SlowQuery;
+import ma.fstt.springoracle.model.SqlPlanHistory;
 import ma.fstt.springoracle.repository.SlowQueryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.CallableStatement;
-import java.sql.Clob;
-import java.sql.Connection;
-import java.sql.Types;
-import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -32,40 +38,44 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
     private final SlowQueryRepository slowQueryRepository;
     private static final Logger logger = LoggerFactory.getLogger(PerformanceOptimizationService.class);
 
-    // Get slow queries from the system
+    @Autowired
+    private SlowQueryCapture slowQueryCapture;
+
+    @Autowired
+    private SqlTuningJobQueue tuningJobQueue;
+
+    @Value("${performance.tuning.optimize-wait-seconds:10}")
+    private int optimizeWaitSeconds;
+
+    @Autowired
+    private TuningRecommendationCache recommendationCache;
+
+    @Autowired
+    private SqlTuningCampaignManager campaignManager;
+
+    @Autowired
+    private PlanRegressionDetector planRegressionDetector;
+
+    @Autowired
+    private SqlPlanBaselineManager baselineManager;
+
+    @Autowired
+    private StatsGatheringOrchestrator statsOrchestrator;
+
+    @Value("${performance.stats.default-degree:2}")
+    private int defaultStatsDegree;
+
+    @Value("${performance.stats.max-concurrency:4}")
+    private int defaultStatsConcurrency;
+
+    @Value("${performance.stats.default-budget-minutes:120}")
+    private int defaultStatsBudgetMinutes;
+
+    // Get slow queries from the system: capture what ran since the last call, then list
     @Transactional
     public List<SlowQuery> identifySlowQueries() {
         try {
-            String sql = """
-                SELECT sql_id, sql_text, elapsed_time, cpu_time, executions
-                FROM v$sql
-                WHERE elapsed_time > 1000000
-                ORDER BY elapsed_time DESC
-                FETCH FIRST 10 ROWS ONLY
-            """;
-
-            List<Map<String, Object>> results = jdbcTemplate.queryForList(sql);
-
-            for (Map<String, Object> row : results) {
-                SlowQuery query = new SlowQuery();
-                query.setSqlId((String) row.get("sql_id"));
-                query.setSqlText((String) row.get("sql_text"));
-
-                // Handle BigDecimal and other numeric types correctly
-                query.setElapsedTime(((Number) row.get("elapsed_time")).doubleValue());
-                query.setCpuTime(((Number) row.get("cpu_time")).doubleValue());
-
-                // Convert executions to Integer safely
-                Object executionsObj = row.get("executions");
-                query.setExecutions(executionsObj != null ? ((Number) executionsObj).intValue() : 0);
-
-                query.setCaptureTime(LocalDateTime.now());
-                query.setStatus("IDENTIFIED");
-
-                slowQueryRepository.save(query);
-                logger.info("Identified slow query with SQL ID: " + query.getSqlId());
-            }
-
+            slowQueryCapture.capture();
             return slowQueryRepository.findByStatusOrderByElapsedTimeDesc("IDENTIFIED");
 
         } catch (Exception e) {
@@ -74,88 +84,112 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
         }
     }
 
-    @Transactional
-    public String optimizeQuery(Long queryId) {
-        SlowQuery query = slowQueryRepository.findById(queryId)
-                .orElseThrow(() -> new RuntimeException("Query not found"));
+    // Tune one statement, waiting a short while for the report; longer tasks keep running on the queue
+    public SqlTuningJobDTO optimizeQuery(Long queryId) {
+        SqlTuningJobDTO job = tuningJobQueue.submit(queryId);
+        job = tuningJobQueue.await(job.getId(), optimizeWaitSeconds, TimeUnit.SECONDS);
+        if (SqlTuningJobQueue.COMPLETED.equals(job.getStatus())) {
+            logger.info("Optimization recommendations for query " + job.getSqlId() + ": " + job.getRecommendations());
+        }
+        return job;
+    }
 
-        String recommendations = null;
+    // Queue a tuning job and return at once
+    public SqlTuningJobDTO submitTuningJob(Long queryId) {
+        return tuningJobQueue.submit(queryId);
+    }
 
-        try {
-            recommendations = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
-                try (CallableStatement dropTask = connection.prepareCall(
-                        "BEGIN " +
-                                "  BEGIN " +
-                                "    DBMS_SQLTUNE.DROP_TUNING_TASK('TUNE_' || ?);" +
-                                "  EXCEPTION " +
-                                "    WHEN OTHERS THEN NULL;" +
-                                "  END;" +
-                                "END;"
-                )) {
-                    dropTask.setString(1, query.getSqlId());
-                    dropTask.execute();
-                }
-
-                // Create tuning task with correct parameters
-                try (CallableStatement createTask = connection.prepareCall(
-                        "DECLARE " +
-                                "  l_sql_tune_task_id VARCHAR2(100);" +
-                                "BEGIN " +
-                                "  l_sql_tune_task_id := DBMS_SQLTUNE.CREATE_TUNING_TASK(" +
-                                "    sql_id => ?, " +
-                                "    task_name => 'TUNE_' || ?, " +
-                                "    time_limit => 3600" +
-                                "  );" +
-                                "END;"
-                )) {
-                    createTask.setString(1, query.getSqlId());
-                    createTask.setString(2, query.getSqlId());
-                    createTask.execute();
-                }
-
-                // Execute tuning task
-                try (CallableStatement executeTask = connection.prepareCall(
-                        "BEGIN " +
-                                "  DBMS_SQLTUNE.EXECUTE_TUNING_TASK(" +
-                                "    task_name => 'TUNE_' || ?" +
-                                ");" +
-                                "END;"
-                )) {
-                    executeTask.setString(1, query.getSqlId());
-                    executeTask.execute();
-                }
-
-                // Retrieve recommendations
-                try (CallableStatement getRecommendations = connection.prepareCall(
-                        "BEGIN " +
-                                "  ? := DBMS_SQLTUNE.REPORT_TUNING_TASK(" +
-                                "    task_name => 'TUNE_' || ?, " +
-                                "    type => 'TEXT', " +
-                                "    level => 'TYPICAL'" +
-                                ");" +
-                                "END;"
-                )) {
-                    getRecommendations.registerOutParameter(1, Types.CLOB);
-                    getRecommendations.setString(2, query.getSqlId());
-                    getRecommendations.execute();
-
-                    Clob clob = getRecommendations.getClob(1);
-                    return clob != null ? clob.getSubString(1, (int) clob.length()) : null;
-                }
-            });
-
-            logger.info("Optimization recommendations for query " + query.getSqlId() + ": " + recommendations);
+    public SqlTuningJobDTO getTuningJob(Long jobId) {
+        return tuningJobQueue.getJob(jobId);
+    }
 
-        } catch (Exception e) {
-            logger.error("Unexpected error during tuning for SQL ID: " + query.getSqlId(), e);
-            throw new RuntimeException("Unexpected error during tuning: " + e.getMessage(), e);
+    public List<SqlTuningJobDTO> getTuningJobs() {
+        return tuningJobQueue.getJobs();
+    }
+
+    public SqlTuningJobDTO cancelTuningJob(Long jobId) {
+        return tuningJobQueue.cancel(jobId);
+    }
+
+    public Map<String, Object> getTuningCacheStats() {
+        return recommendationCache.getStats();
+    }
+
+    public void clearTuningCache() {
+        recommendationCache.clear();
+    }
+
+    public SqlTuningCampaignDTO startTuningCampaign(String name, List<Long> queryIds, int limit) {
+        return campaignManager.start(name, queryIds, limit);
+    }
+
+    public SqlTuningCampaignDTO getTuningCampaign(Long campaignId) {
+        return campaignManager.get(campaignId);
+    }
+
+    public List<SqlTuningCampaignDTO> getTuningCampaigns() {
+        return campaignManager.getAll();
+    }
+
+    public SqlTuningCampaignDTO cancelTuningCampaign(Long campaignId) {
+        return campaignManager.cancel(campaignId);
+    }
+
+    public List<PlanRegression> samplePlanHistory() {
+        return planRegressionDetector.sample();
+    }
+
+    public List<SqlPlanHistory> getPlanHistory(String sqlId) {
+        return planRegressionDetector.getHistory(sqlId);
+    }
+
+    public List<PlanRegression> getPlanRegressions(String status) {
+        return planRegressionDetector.getRegressions(status);
+    }
+
+    public PlanRegression resolvePlanRegression(Long regressionId) {
+        return planRegressionDetector.resolve(regressionId);
+    }
+
+    public Map<String, Object> loadPlanBaseline(String sqlId, long planHashValue, String source, boolean fixed) {
+        return baselineManager.loadPlan(sqlId, planHashValue, source, fixed);
+    }
+
+    // Pins the best recorded plan of a regressed statement and resolves the regression
+    public Map<String, Object> baselineRegression(Long regressionId) {
+        PlanRegression regression = planRegressionDetector.getRegression(regressionId);
+        Map<String, Object> result = baselineManager.loadPlan(regression.getSqlId(),
+                regression.getBestPlanHashValue(), SqlPlanBaselineManager.SOURCE_AUTO, false);
+        if ((int) result.get("plansLoaded") > 0) {
+            planRegressionDetector.resolve(regressionId);
         }
+        return result;
+    }
+
+    public List<PlanBaselineDTO> getPlanBaselines(String sqlId) {
+        return baselineManager.getBaselines(sqlId);
+    }
+
+    public BaselineEvolveDTO evolvePlanBaseline(String sqlHandle, String planName, boolean accept) {
+        return baselineManager.evolve(sqlHandle, planName, accept);
+    }
 
-        query.setOptimizationRecommendations(recommendations);
-        query.setStatus("OPTIMIZED");
+    public String acceptPlanBaseline(String sqlHandle, String planName) {
+        return baselineManager.accept(sqlHandle, planName);
+    }
+
+    public int alterPlanBaseline(String sqlHandle, String planName, Boolean enabled, Boolean fixed) {
+        return baselineManager.alter(sqlHandle, planName, enabled, fixed);
+    }
+
+    public int dropPlanBaseline(String sqlHandle, String planName) {
+        return baselineManager.drop(sqlHandle, planName);
+    }
 
-        return slowQueryRepository.save(query).getOptimizationRecommendations();
+    public BaselineUsageReportDTO getBaselineUsage(int limit) {
+        return baselineManager.usageReport(limit);
     }
+
     // Gather table statistics
     public void gatherTableStats(String schemaName, String tableName) {
         String sql = """
@@ -172,8 +206,42 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
         jdbcTemplate.update(sql, schemaName, tableName);
     }
 
-    // Schedule statistics gathering job
+    public List<StatsGatheringTaskDTO> getStaleTables(List<String> schemas, int limit) {
+        return statsOrchestrator.findStaleTables(schemas, limit);
+    }
+
+    // Gathers the stale tables of the schemas, most urgent first, within the time budget
+    public StatsGatheringRunDTO startStatsGathering(List<String> schemas, Integer degree, Integer concurrency,
+                                                    Integer budgetMinutes, int maxTables) {
+        return statsOrchestrator.start(schemas,
+                degree != null ? degree : defaultStatsDegree,
+                concurrency != null ? concurrency : defaultStatsConcurrency,
+                budgetMinutes != null ? budgetMinutes : defaultStatsBudgetMinutes,
+                maxTables);
+    }
+
+    public StatsGatheringRunDTO getStatsGatheringRun(long runId) {
+        return statsOrchestrator.getRun(runId);
+    }
+
+    public List<StatsGatheringRunDTO> getStatsGatheringRuns() {
+        return statsOrchestrator.getRuns();
+    }
+
+    public StatsGatheringRunDTO cancelStatsGatheringRun(long runId) {
+        return statsOrchestrator.cancel(runId);
+    }
+
+    // Schedule statistics gathering job, replacing the one already scheduled for the schema
     public void scheduleStatsGathering(String schemaName) {
+        try {
+            jdbcTemplate.update("BEGIN DBMS_SCHEDULER.DROP_JOB(job_name => 'GATHER_STATS_' || ?); END;", schemaName);
+        } catch (DataAccessException e) {
+            // ORA-27475: no job scheduled yet
+            if (!String.valueOf(e.getMessage()).contains("ORA-27475")) {
+                throw e;
+            }
+        }
         String sql = """
             BEGIN
                 DBMS_SCHEDULER.CREATE_JOB(
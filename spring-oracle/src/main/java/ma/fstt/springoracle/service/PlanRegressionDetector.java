@@ -0,0 +1,292 @@
+package ma.fstt.springoracle.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ma.fstt.springoracle.exception.ResourceNotFoundException;
+import ma.fstt.springoracle.model.PlanRegression;
+import ma.fstt.springoracle.model.SqlPlanHistory;
+import ma.fstt.springoracle.repository.PlanRegressionRepository;
+import ma.fstt.springoracle.repository.SlowQueryRepository;
+import ma.fstt.springoracle.repository.SqlPlanHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plan history of the statements in SLOW_QUERIES, and regression detection on top of it.
+ * <p>
+ * Every interval the v$sqlstats counters of each (sql_id, plan_hash_value) of a tracked
+ * statement are turned into deltas and stored in SQL_PLAN_HISTORY. The first sight of a
+ * cursor, including after a restart, only sets its baseline. When the plan a statement mostly
+ * ran with in the interval averages at least {@code regression-ratio} times the elapsed time
+ * per execution of the best other plan on record, a regression is stored with both plans
+ * rendered by DBMS_XPLAN and published as an application event. One open regression is kept
+ * per statement and plan; once resolved, the plan is only reported again when the executions
+ * recorded after the resolution are still slow.
+ */
+@Component
+public class PlanRegressionDetector {
+    private static final Logger logger = LoggerFactory.getLogger(PlanRegressionDetector.class);
+
+    public static final String OPEN = "OPEN";
+    public static final String RESOLVED = "RESOLVED";
+
+    private static final String SQLSTATS_SQL = """
+            SELECT sql_id, plan_hash_value, executions, elapsed_time, cpu_time, buffer_gets
+            FROM v$sqlstats
+            WHERE sql_id IN (:sqlIds)
+            """;
+
+    private static final String CURSOR_CHILD_SQL = """
+            SELECT MIN(child_number)
+            FROM v$sql
+            WHERE sql_id = ? AND plan_hash_value = ?
+            """;
+
+    private static final String DISPLAY_CURSOR_SQL = """
+            SELECT plan_table_output
+            FROM TABLE(DBMS_XPLAN.DISPLAY_CURSOR(?, ?, 'TYPICAL'))
+            """;
+
+    private static final String DISPLAY_AWR_SQL = """
+            SELECT plan_table_output
+            FROM TABLE(DBMS_XPLAN.DISPLAY_AWR(?, ?, NULL, 'TYPICAL'))
+            """;
+
+    // Oracle's limit on an IN list
+    private static final int IN_LIST_LIMIT = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SlowQueryRepository slowQueryRepository;
+
+    @Autowired
+    private SqlPlanHistoryRepository historyRepository;
+
+    @Autowired
+    private PlanRegressionRepository regressionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${performance.plan-history.max-tracked:200}")
+    private int maxTracked;
+
+    @Value("${performance.plan-history.min-executions:5}")
+    private long minExecutions;
+
+    @Value("${performance.plan-history.regression-ratio:1.5}")
+    private double regressionRatio;
+
+    @Value("${performance.plan-history.retention-days:30}")
+    private int retentionDays;
+
+    private final Counter regressionCounter;
+
+    // Cumulative [executions, elapsed, cpu, buffer gets] per "sql_id:plan_hash_value"
+    private final Map<String, double[]> previous = new HashMap<>();
+
+    @Autowired
+    public PlanRegressionDetector(MeterRegistry registry) {
+        this.regressionCounter = Counter.builder("oracle.plan.regressions")
+                .description("Plan regressions detected on tracked statements")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${performance.plan-history.interval-ms:300000}")
+    public void scheduledSample() {
+        try {
+            sample();
+        } catch (Exception e) {
+            logger.warn("Plan history sampling failed: " + e.getMessage());
+        }
+    }
+
+    // Records one interval of plan history and returns the regressions it revealed
+    public synchronized List<PlanRegression> sample() {
+        List<String> tracked = slowQueryRepository.findTrackedSqlIds();
+        if (tracked.size() > maxTracked) {
+            tracked = tracked.subList(0, maxTracked);
+        }
+        if (tracked.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SqlPlanHistory> samples = new ArrayList<>();
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        for (int from = 0; from < tracked.size(); from += IN_LIST_LIMIT) {
+            List<String> chunk = tracked.subList(from, Math.min(from + IN_LIST_LIMIT, tracked.size()));
+            namedJdbcTemplate.query(SQLSTATS_SQL, new MapSqlParameterSource("sqlIds", chunk), rs -> {
+                String sqlId = rs.getString("sql_id");
+                long planHashValue = rs.getLong("plan_hash_value");
+                double[] current = {
+                        rs.getDouble("executions"), rs.getDouble("elapsed_time"),
+                        rs.getDouble("cpu_time"), rs.getDouble("buffer_gets")
+                };
+                double[] before = previous.put(sqlId + ":" + planHashValue, current);
+                if (before == null) {
+                    // First sight, also after a restart: lifetime totals are not an interval
+                    return;
+                }
+                if (current[0] < before[0] || current[1] < before[1]) {
+                    // Cursor reloaded, its counters started over
+                    before = new double[4];
+                }
+                long executions = (long) (current[0] - before[0]);
+                if (executions <= 0) {
+                    return;
+                }
+                SqlPlanHistory sample = new SqlPlanHistory();
+                sample.setSqlId(sqlId);
+                sample.setPlanHashValue(planHashValue);
+                sample.setSampleTime(now);
+                sample.setExecutions(executions);
+                sample.setElapsedTime(current[1] - before[1]);
+                sample.setCpuTime(current[2] - before[2]);
+                sample.setBufferGets((long) (current[3] - before[3]));
+                sample.setElapsedPerExec(sample.getElapsedTime() / executions);
+                samples.add(sample);
+            });
+        }
+        // Statements no longer tracked
+        Set<String> trackedIds = Set.copyOf(tracked);
+        previous.keySet().removeIf(key -> !trackedIds.contains(key.substring(0, key.indexOf(':'))));
+
+        historyRepository.saveAll(samples);
+        historyRepository.deleteOlderThan(now.minusDays(retentionDays));
+
+        // Plan each statement mostly ran with in this interval
+        Map<String, SqlPlanHistory> dominant = new HashMap<>();
+        for (SqlPlanHistory sample : samples) {
+            dominant.merge(sample.getSqlId(), sample,
+                    (a, b) -> b.getExecutions() > a.getExecutions() ? b : a);
+        }
+        List<PlanRegression> regressions = new ArrayList<>();
+        for (SqlPlanHistory sample : dominant.values()) {
+            PlanRegression regression = detect(sample.getSqlId(), sample.getPlanHashValue());
+            if (regression != null) {
+                regressions.add(regression);
+            }
+        }
+        return regressions;
+    }
+
+    public List<SqlPlanHistory> getHistory(String sqlId) {
+        return historyRepository.findBySqlIdOrderBySampleTimeDesc(sqlId);
+    }
+
+    public List<PlanRegression> getRegressions(String status) {
+        return status == null || status.isBlank()
+                ? regressionRepository.findAllByOrderByDetectedAtDesc()
+                : regressionRepository.findByStatusOrderByDetectedAtDesc(status.toUpperCase());
+    }
+
+    public PlanRegression getRegression(Long regressionId) {
+        return regressionRepository.findById(regressionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Plan regression not found: " + regressionId));
+    }
+
+    public PlanRegression resolve(Long regressionId) {
+        PlanRegression regression = getRegression(regressionId);
+        regression.setStatus(RESOLVED);
+        regression.setResolvedAt(LocalDateTime.now());
+        return regressionRepository.save(regression);
+    }
+
+    // Compares the current plan with the best other plan on record
+    private PlanRegression detect(String sqlId, long currentPlan) {
+        SqlPlanHistoryRepository.PlanTotals current = null;
+        SqlPlanHistoryRepository.PlanTotals best = null;
+        for (SqlPlanHistoryRepository.PlanTotals totals : historyRepository.findPlanTotals(sqlId)) {
+            if (totals.getExecutions() == null || totals.getExecutions() < minExecutions) {
+                continue;
+            }
+            if (totals.getPlanHashValue() == currentPlan) {
+                current = totals;
+            } else if (best == null || perExec(totals) < perExec(best)) {
+                best = totals;
+            }
+        }
+        if (current == null || best == null || perExec(current) < perExec(best) * regressionRatio) {
+            return null;
+        }
+        PlanRegression previous = regressionRepository
+                .findFirstBySqlIdAndRegressedPlanHashValueOrderByDetectedAtDesc(sqlId, currentPlan).orElse(null);
+        if (previous != null) {
+            if (OPEN.equals(previous.getStatus())) {
+                return null;
+            }
+            // Resolved: only raised again when the plan is still slow in what ran since
+            current = sinceResolution(sqlId, currentPlan,
+                    previous.getResolvedAt() != null ? previous.getResolvedAt() : previous.getDetectedAt());
+            if (current == null || perExec(current) < perExec(best) * regressionRatio) {
+                return null;
+            }
+        }
+
+        PlanRegression regression = new PlanRegression();
+        regression.setSqlId(sqlId);
+        regression.setDetectedAt(LocalDateTime.now());
+        regression.setStatus(OPEN);
+        regression.setRegressedPlanHashValue(currentPlan);
+        regression.setBestPlanHashValue(best.getPlanHashValue());
+        regression.setRegressedElapsedPerExec(perExec(current));
+        regression.setBestElapsedPerExec(perExec(best));
+        regression.setSlowdown(Math.round(perExec(current) / perExec(best) * 100) / 100.0);
+        regression.setRegressedPlan(displayPlan(sqlId, currentPlan));
+        regression.setBestPlan(displayPlan(sqlId, best.getPlanHashValue()));
+        regression = regressionRepository.save(regression);
+
+        regressionCounter.increment();
+        logger.warn("Plan regression on SQL ID " + sqlId + ": plan " + currentPlan + " is "
+                + regression.getSlowdown() + "x slower per execution than plan " + best.getPlanHashValue());
+        eventPublisher.publishEvent(regression);
+        return regression;
+    }
+
+    private SqlPlanHistoryRepository.PlanTotals sinceResolution(String sqlId, long planHashValue, LocalDateTime since) {
+        for (SqlPlanHistoryRepository.PlanTotals totals : historyRepository.findPlanTotalsSince(sqlId, since)) {
+            if (totals.getPlanHashValue() == planHashValue
+                    && totals.getExecutions() != null && totals.getExecutions() >= minExecutions) {
+                return totals;
+            }
+        }
+        return null;
+    }
+
+    private static double perExec(SqlPlanHistoryRepository.PlanTotals totals) {
+        return totals.getElapsedTime() / totals.getExecutions();
+    }
+
+    // From the cursor cache while the plan is there, from AWR otherwise
+    private String displayPlan(String sqlId, long planHashValue) {
+        try {
+            Integer child = jdbcTemplate.queryForObject(CURSOR_CHILD_SQL, Integer.class, sqlId, planHashValue);
+            List<String> lines = child != null
+                    ? jdbcTemplate.queryForList(DISPLAY_CURSOR_SQL, String.class, sqlId, child)
+                    : jdbcTemplate.queryForList(DISPLAY_AWR_SQL, String.class, sqlId, planHashValue);
+            return String.join("\n", lines);
+        } catch (DataAccessException e) {
+            logger.warn("Could not display plan " + planHashValue + " of SQL ID " + sqlId + ": " + e.getMessage());
+            return "Plan not available: " + e.getMessage();
+        }
+    }
+}
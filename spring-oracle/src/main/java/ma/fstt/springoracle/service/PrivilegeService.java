@@ -2,6 +2,7 @@ package ma.fstt.springoracle.service;
 
 import ma.fstt.springoracle.model.Privilege;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface PrivilegeService {
@@ -20,4 +21,8 @@ public interface PrivilegeService {
     List<String> getGrantedSystemPrivileges(String userName);
 
     List<String> getGrantedObjectPrivileges(String userName);
+
+    Map<String, Map<String, Long>> getDictionaryCacheStats();
+
+    void clearDictionaryCache();
 }
\ No newline at end of file
@@ -10,7 +10,10 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,6 +23,7 @@ public class PrivilegeServiceImpl implements PrivilegeService {
 
     private final PrivilegeRepository privilegeRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final DictionaryCache dictionaryCache;
 
 
     @Override
@@ -30,10 +34,9 @@ public class PrivilegeServiceImpl implements PrivilegeService {
 
     @Override
     public List<String> getAllPrivileges() {
-        return jdbcTemplate.queryForList(
-                "SELECT DISTINCT PRIVILEGE FROM DBA_SYS_PRIVS",
-                String.class
-        );
+        List<String> privileges = new ArrayList<>(dictionaryCache.grantedSystemPrivileges());
+        Collections.sort(privileges);
+        return privileges;
     }
 
 
@@ -59,6 +62,7 @@ public class PrivilegeServiceImpl implements PrivilegeService {
         );
 
         executePrivilegeCommand(sql, "grant system privilege");
+        dictionaryCache.invalidateGrants();
     }
 
     @Override
@@ -85,10 +89,8 @@ public class PrivilegeServiceImpl implements PrivilegeService {
     }
 
     private boolean isValidObject(String objectName) {
-        String sql = "SELECT COUNT(*) FROM all_objects WHERE object_name = ?";
         try {
-            Integer count = jdbcTemplate.queryForObject(sql, Integer.class, objectName.toUpperCase());
-            return count != null && count > 0;
+            return dictionaryCache.objectExists(objectName);
         } catch (DataAccessException e) {
             log.warn("Error checking object existence: {}", e.getMessage());
             return false;
@@ -110,6 +112,7 @@ public class PrivilegeServiceImpl implements PrivilegeService {
                 sanitizeIdentifier(userName)
         );
         executePrivilegeCommand(sql, "revoke system privilege");
+        dictionaryCache.invalidateGrants();
     }
 
     @Override
@@ -167,6 +170,17 @@ public class PrivilegeServiceImpl implements PrivilegeService {
         );
     }
 
+    @Override
+    public Map<String, Map<String, Long>> getDictionaryCacheStats() {
+        return dictionaryCache.getStats();
+    }
+
+    @Override
+    public void clearDictionaryCache() {
+        log.info("Clearing data dictionary cache");
+        dictionaryCache.invalidateAll();
+    }
+
     private boolean validatePrivilegeExists(String privilegeName) {
         log.debug("Validating privilege existence: {}", privilegeName);
         String sql = """
@@ -189,15 +203,8 @@ public class PrivilegeServiceImpl implements PrivilegeService {
 
     private boolean validateSystemPrivilegeExists(String privilegeName) {
         log.debug("Validating system privilege existence: {}", privilegeName);
-        String sql = "SELECT COUNT(*) FROM system_privilege_map WHERE name = ?";
-
         try {
-            Integer count = jdbcTemplate.queryForObject(
-                    sql,
-                    Integer.class,
-                    privilegeName.toUpperCase()
-            );
-            return count != null && count > 0;
+            return dictionaryCache.systemPrivilegeExists(privilegeName);
         } catch (Exception e) {
             log.warn("Error checking system privilege existence: {}", e.getMessage());
             // If we can't verify (e.g., insufficient permissions), we'll assume it exists
@@ -233,15 +240,8 @@ public class PrivilegeServiceImpl implements PrivilegeService {
 
     private boolean isValidUser(String userName) {
         log.debug("Validating user existence: {}", userName);
-        String sql = "SELECT COUNT(*) FROM all_users WHERE username = ?";
-
         try {
-            Integer count = jdbcTemplate.queryForObject(
-                    sql,
-                    Integer.class,
-                    userName.toUpperCase()
-            );
-            return count != null && count > 0;
+            return dictionaryCache.userExists(userName);
         } catch (Exception e) {
             log.warn("Error checking user existence: {}", e.getMessage());
             return false;
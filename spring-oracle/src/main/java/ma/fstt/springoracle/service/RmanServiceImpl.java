@@ -1,5 +1,7 @@
 package ma.fstt.springoracle.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import ma.fstt.springoracle.model.BackupHistory;
 import ma.fstt.springoracle.repository.BackupHistoryRepository;
@@ -17,6 +19,7 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -27,8 +30,12 @@ public class RmanServiceImpl implements RmanService {
     @Autowired
     private BackupHistoryRepository backupHistoryRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
 
     public String performFullBackup() {
+        long startNanos = System.nanoTime();
         String result = "Backup Failed"; // Default result message
         String result_backup_history = "Backup Failed";
         String status = "FAILURE";
@@ -74,11 +81,13 @@ public class RmanServiceImpl implements RmanService {
         }
 
         // Save backup record
+        recordDuration("FULL", status, startNanos);
         backupHistoryRepository.save(new BackupHistory("FULL", status, LocalDateTime.now(), result_backup_history));
         return result;
     }
 
     public String performIncrementalBackup(int level) {
+        long startNanos = System.nanoTime();
         String result = "Backup Failed"; // Default result message
 
         String result_backup_history = "Backup Failed";
@@ -128,6 +137,7 @@ public class RmanServiceImpl implements RmanService {
         }
 
         // Save backup record
+        recordDuration("INCREMENTAL", status, startNanos);
         backupHistoryRepository.save(new BackupHistory("INCREMENTAL", status, LocalDateTime.now(), result_backup_history));
         return result;
     }
@@ -137,6 +147,7 @@ public class RmanServiceImpl implements RmanService {
     }
 
     public String performRestore() {
+        long startNanos = System.nanoTime();
         String result = "Restore Failed";
         String result_backup_history = "Restore Failed";
         String status = "FAILURE";
@@ -197,15 +208,18 @@ public class RmanServiceImpl implements RmanService {
         }
 
         // Log the restore operation in backup history
+        recordDuration("RESTORE", status, startNanos);
         backupHistoryRepository.save(new BackupHistory("RESTORE", status, LocalDateTime.now(), result_backup_history));
 
         return result;
     }
 
-
-
-
-
-
+    // Backup and restore durations, exported as the oracle.backup.duration timer
+    private void recordDuration(String type, String status, long startNanos) {
+        Timer.builder("oracle.backup.duration")
+                .tag("type", type)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
 }
-
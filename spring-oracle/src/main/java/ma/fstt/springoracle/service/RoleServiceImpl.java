@@ -21,6 +21,7 @@ public class RoleServiceImpl implements RoleService {
     private final RoleRepository roleRepository;
     private final PrivilegeRepository privilegeRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final DictionaryCache dictionaryCache;
 
     @Override
     public Role createRole(RoleDTO roleDTO) {
@@ -40,6 +41,7 @@ public class RoleServiceImpl implements RoleService {
             validPrivileges.forEach(privilege ->
                     jdbcTemplate.execute("GRANT " + privilege + " TO " + roleDTO.getName())
             );
+            dictionaryCache.invalidateGrants();
 
             // Store only validated privileges in the database
             Set<Privilege> privileges = validPrivileges.stream()
@@ -67,6 +69,7 @@ public class RoleServiceImpl implements RoleService {
                 .orElseThrow(() -> new RuntimeException("Role not found: " + name));
 
         jdbcTemplate.execute("DROP ROLE " + name);
+        dictionaryCache.invalidateGrants();
         roleRepository.delete(role);
     }
 
@@ -79,6 +82,7 @@ public class RoleServiceImpl implements RoleService {
         validateAndGetOraclePrivileges(Collections.singleton(privilegeName));
 
         jdbcTemplate.execute("GRANT " + privilegeName + " TO " + roleName);
+        dictionaryCache.invalidateGrants();
 
         // Update the role's privileges in the database
         Privilege privilege = getOrCreatePrivilege(privilegeName);
@@ -96,6 +100,7 @@ public class RoleServiceImpl implements RoleService {
         validPrivileges.forEach(privilegeName ->
                 jdbcTemplate.execute("GRANT " + privilegeName + " TO " + roleName)
         );
+        dictionaryCache.invalidateGrants();
 
         // Update the role's privileges in the database
         Set<Privilege> privileges = validPrivileges.stream()
@@ -111,6 +116,7 @@ public class RoleServiceImpl implements RoleService {
                 .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
 
         jdbcTemplate.execute("REVOKE " + privilegeName + " FROM " + roleName);
+        dictionaryCache.invalidateGrants();
 
         role.getPrivileges().removeIf(privilege -> privilege.getName().equals(privilegeName));
         roleRepository.save(role);
@@ -137,11 +143,8 @@ public class RoleServiceImpl implements RoleService {
     }
 
     private Set<String> validateAndGetOraclePrivileges(Set<String> privilegeNames) {
-        // Query Oracle system privileges
-        List<String> validOraclePrivileges = jdbcTemplate.queryForList(
-                "SELECT DISTINCT PRIVILEGE FROM DBA_SYS_PRIVS",
-                String.class
-        );
+        // Oracle system privileges, cached and invalidated by our own GRANT/REVOKE
+        Set<String> validOraclePrivileges = dictionaryCache.grantedSystemPrivileges();
 
         // Validate privileges
         Set<String> invalidPrivileges = privilegeNames.stream()
@@ -0,0 +1,85 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.dto.RouteLatencyDTO;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution, in-flight count and error counts per route (HTTP method and mapping
+ * pattern). Request threads write to HdrHistogram recorders, which are wait-free; readers
+ * swap out the interval histogram and fold it into the cumulative one.
+ */
+@Component
+public class RouteLatencyRecorder {
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    private static final class RouteStats {
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram cumulative = new Histogram(3);
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private Histogram interval;
+    }
+
+    public void started(String route) {
+        stats(route).inFlight.increment();
+    }
+
+    // Called once per started request, with the final response status
+    public void completed(String route, long durationNanos, int status, boolean failed) {
+        RouteStats stats = stats(route);
+        stats.inFlight.decrement();
+        stats.recorder.recordValue(Math.max(1, durationNanos));
+        if (failed || status >= 500) {
+            stats.serverErrors.increment();
+        } else if (status >= 400) {
+            stats.clientErrors.increment();
+        }
+    }
+
+    // Slowest routes (by p99) first
+    public List<RouteLatencyDTO> snapshot() {
+        List<RouteLatencyDTO> result = new ArrayList<>(routes.size());
+        routes.forEach((route, stats) -> {
+            Histogram histogram;
+            synchronized (stats) {
+                stats.interval = stats.recorder.getIntervalHistogram(stats.interval);
+                stats.cumulative.add(stats.interval);
+                histogram = stats.cumulative.copy();
+            }
+            long requests = histogram.getTotalCount();
+            long serverErrors = stats.serverErrors.sum();
+            result.add(RouteLatencyDTO.builder()
+                    .route(route)
+                    .requests(requests)
+                    .serverErrors(serverErrors)
+                    .clientErrors(stats.clientErrors.sum())
+                    .errorRate(requests > 0 ? (double) serverErrors / requests : 0)
+                    .inFlight(stats.inFlight.sum())
+                    .meanMs(requests > 0 ? histogram.getMean() / NANOS_PER_MS : 0)
+                    .p50Ms(histogram.getValueAtPercentile(50) / NANOS_PER_MS)
+                    .p99Ms(histogram.getValueAtPercentile(99) / NANOS_PER_MS)
+                    .p999Ms(histogram.getValueAtPercentile(99.9) / NANOS_PER_MS)
+                    .maxMs(histogram.getMaxValue() / NANOS_PER_MS)
+                    .build());
+        });
+        result.sort(Comparator.comparingDouble(RouteLatencyDTO::getP99Ms).reversed());
+        return result;
+    }
+
+    private RouteStats stats(String route) {
+        RouteStats stats = routes.get(route);
+        return stats != null ? stats : routes.computeIfAbsent(route, key -> new RouteStats());
+    }
+}
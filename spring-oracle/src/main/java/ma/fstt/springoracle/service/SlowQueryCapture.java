@@ -0,0 +1,246 @@
+package ma.fstt.springoracle.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental slow query capture from v$sqlstats.
+ * <p>
+ * Keeps the cumulative elapsed time, CPU time and executions of every cursor seen, and on each
+ * capture works out what each (sql_id, plan_hash_value) did since the previous one. A cursor
+ * loaded since the previous capture, or whose counters went backwards because it was reloaded,
+ * counts from zero. The first capture after startup, or after the tracked cursors were reset,
+ * only records baselines, since SLOW_QUERIES already holds what ran before; only when that table
+ * is still empty does it seed lifetime figures. After the first capture only cursors active
+ * since the previous one are read.
+ * <p>
+ * Cursor deltas are then summed per statement shape, so an application that inlines literals
+ * and produces thousands of sql_ids for one statement still shows up as one hot statement.
+ * The shape is the SqlFingerprint of the text, computed once per cursor; v$sqlstats keeps only
+ * the first 1000 characters, so longer statements are grouped by force_matching_signature
+ * instead. The slowest shapes are upserted into SLOW_QUERIES with a single batched MERGE keyed
+ * by fingerprint, adding to the totals of rows already captured; each row names the most
+ * expensive cursor of its shape, which is what gets tuned.
+ */
+@Component
+public class SlowQueryCapture {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryCapture.class);
+
+    private static final int SQLSTATS_TEXT_LENGTH = 1000;
+
+    private static final String SQLSTATS_SQL = """
+            SELECT sql_id, plan_hash_value, force_matching_signature, sql_text,
+                   elapsed_time, cpu_time, executions
+            FROM v$sqlstats
+            WHERE last_active_time >= ?
+            """;
+
+    private static final String ANY_CAPTURED_SQL = """
+            SELECT COUNT(*) FROM slow_queries WHERE ROWNUM = 1
+            """;
+
+    private static final String MERGE_SQL = """
+            MERGE INTO slow_queries q
+            USING (SELECT ? AS fingerprint, ? AS sql_id, ? AS plan_hash_value, ? AS force_matching_signature,
+                          ? AS sql_text, ? AS elapsed_time, ? AS cpu_time, ? AS executions,
+                          ? AS sql_id_count, ? AS capture_time FROM dual) s
+            ON (q.fingerprint = s.fingerprint)
+            WHEN MATCHED THEN UPDATE SET
+                q.sql_id = s.sql_id,
+                q.plan_hash_value = s.plan_hash_value,
+                q.force_matching_signature = s.force_matching_signature,
+                q.sql_text = s.sql_text,
+                q.elapsed_time = NVL(q.elapsed_time, 0) + s.elapsed_time,
+                q.cpu_time = NVL(q.cpu_time, 0) + s.cpu_time,
+                q.executions = NVL(q.executions, 0) + s.executions,
+                q.sql_id_count = s.sql_id_count,
+                q.capture_time = s.capture_time
+            WHEN NOT MATCHED THEN INSERT
+                (fingerprint, sql_id, plan_hash_value, force_matching_signature, sql_text,
+                 elapsed_time, cpu_time, executions, sql_id_count, capture_time, status)
+                VALUES (s.fingerprint, s.sql_id, s.plan_hash_value, s.force_matching_signature, s.sql_text,
+                        s.elapsed_time, s.cpu_time, s.executions, s.sql_id_count, s.capture_time, 'IDENTIFIED')
+            """;
+
+    // Cumulative counters of one cursor as of the last capture
+    private static final class CursorState {
+        private final String fingerprint;
+        private double elapsedTime;
+        private double cpuTime;
+        private double executions;
+
+        private CursorState(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    // One statement shape within a capture
+    private static final class Shape {
+        private final String fingerprint;
+        private double elapsedTime;
+        private double cpuTime;
+        private long executions;
+        private int cursors;
+        private String sqlId;
+        private long planHashValue;
+        private String forceMatchingSignature;
+        private String sqlText;
+        private double topElapsedTime = -1;
+
+        private Shape(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double minElapsedMicros;
+    private final int topN;
+    private final int maxTracked;
+    private final int fetchSize;
+
+    // Keyed by "sql_id:plan_hash_value"
+    private final Map<String, CursorState> previous = new HashMap<>();
+    private Timestamp lastCapture;
+
+    @Autowired
+    public SlowQueryCapture(JdbcTemplate jdbcTemplate,
+                            @Value("${performance.slow-queries.min-elapsed-ms:1000}") long minElapsedMs,
+                            @Value("${performance.slow-queries.top:10}") int topN,
+                            @Value("${performance.slow-queries.max-tracked:200000}") int maxTracked,
+                            @Value("${performance.slow-queries.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minElapsedMicros = minElapsedMs * 1000.0;
+        this.topN = topN;
+        this.maxTracked = maxTracked;
+        this.fetchSize = fetchSize;
+    }
+
+    // Returns the number of statement shapes upserted
+    public synchronized int capture() {
+        if (previous.size() > maxTracked) {
+            // Bounded memory: start over, the next capture only sets baselines again
+            previous.clear();
+            lastCapture = null;
+        }
+        Timestamp since = lastCapture != null ? lastCapture : new Timestamp(0);
+        // Without a previous capture, cursors not seen yet hold work from before; only count it into an empty table
+        boolean countNewCursors = lastCapture != null
+                || jdbcTemplate.queryForObject(ANY_CAPTURED_SQL, Integer.class) == 0;
+        // last_active_time has a one second granularity; take the boundary twice rather than miss it
+        Timestamp captureTime = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+
+        Map<String, Shape> shapes = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            var ps = connection.prepareStatement(SQLSTATS_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setTimestamp(1, since);
+            return ps;
+        }, rs -> {
+            String sqlId = rs.getString("sql_id");
+            long planHashValue = rs.getLong("plan_hash_value");
+            double elapsed = rs.getDouble("elapsed_time");
+            double cpu = rs.getDouble("cpu_time");
+            double executions = rs.getDouble("executions");
+
+            String key = sqlId + ":" + planHashValue;
+            CursorState state = previous.get(key);
+            double elapsedDelta;
+            double cpuDelta;
+            double executionsDelta;
+            if (state == null && !countNewCursors) {
+                state = new CursorState(fingerprint(rs.getString("sql_text"), rs.getString("force_matching_signature")));
+                state.elapsedTime = elapsed;
+                state.cpuTime = cpu;
+                state.executions = executions;
+                previous.put(key, state);
+                return;
+            }
+            if (state == null || elapsed < state.elapsedTime || executions < state.executions) {
+                if (state == null) {
+                    state = new CursorState(fingerprint(rs.getString("sql_text"), rs.getString("force_matching_signature")));
+                    previous.put(key, state);
+                }
+                elapsedDelta = elapsed;
+                cpuDelta = cpu;
+                executionsDelta = executions;
+            } else {
+                elapsedDelta = elapsed - state.elapsedTime;
+                cpuDelta = cpu - state.cpuTime;
+                executionsDelta = executions - state.executions;
+            }
+            state.elapsedTime = elapsed;
+            state.cpuTime = cpu;
+            state.executions = executions;
+            if (elapsedDelta <= 0) {
+                return;
+            }
+
+            Shape shape = shapes.computeIfAbsent(state.fingerprint, Shape::new);
+            shape.elapsedTime += elapsedDelta;
+            shape.cpuTime += cpuDelta;
+            shape.executions += (long) executionsDelta;
+            shape.cursors++;
+            if (elapsedDelta > shape.topElapsedTime) {
+                shape.topElapsedTime = elapsedDelta;
+                shape.sqlId = sqlId;
+                shape.planHashValue = planHashValue;
+                shape.forceMatchingSignature = rs.getString("force_matching_signature");
+                shape.sqlText = rs.getString("sql_text");
+            }
+        });
+        lastCapture = captureTime;
+
+        List<Shape> slowest = new ArrayList<>();
+        for (Shape shape : shapes.values()) {
+            if (shape.elapsedTime >= minElapsedMicros) {
+                slowest.add(shape);
+            }
+        }
+        int overThreshold = slowest.size();
+        slowest.sort(Comparator.comparingDouble((Shape shape) -> shape.elapsedTime).reversed());
+        if (slowest.size() > topN) {
+            slowest = slowest.subList(0, topN);
+        }
+        if (!slowest.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(MERGE_SQL, slowest, slowest.size(), (ps, shape) -> {
+                ps.setString(1, shape.fingerprint);
+                ps.setString(2, shape.sqlId);
+                ps.setLong(3, shape.planHashValue);
+                ps.setString(4, shape.forceMatchingSignature);
+                ps.setString(5, shape.sqlText);
+                ps.setDouble(6, shape.elapsedTime);
+                ps.setDouble(7, shape.cpuTime);
+                ps.setLong(8, shape.executions);
+                ps.setInt(9, shape.cursors);
+                ps.setTimestamp(10, now);
+            });
+        }
+        logger.info("Captured " + slowest.size() + " slow statements out of " + overThreshold
+                + " over threshold (" + shapes.size() + " active shapes), tracking " + previous.size() + " cursors");
+        return slowest.size();
+    }
+
+    // Text fingerprint, or the signature when v$sqlstats cut the text short
+    private static String fingerprint(String sqlText, String forceMatchingSignature) {
+        if (sqlText != null && sqlText.length() < SQLSTATS_TEXT_LENGTH) {
+            return SqlFingerprint.id(sqlText);
+        }
+        if (forceMatchingSignature != null && !"0".equals(forceMatchingSignature)) {
+            return "fms:" + forceMatchingSignature;
+        }
+        return SqlFingerprint.id(sqlText != null ? sqlText : "");
+    }
+}
@@ -0,0 +1,390 @@
+package ma.fstt.springoracle.service;
+
+import java.util.Arrays;
+
+/**
+ * Single pass SQL tokenizer that reduces a statement to its shape.
+ * <p>
+ * String, numeric and national/q-quoted literals and bind variables become {@code ?}, and a
+ * parenthesized list whose items are all placeholders of the same shape collapses to one item:
+ * {@code IN (1, 2, 3)} becomes {@code in(?)} and {@code IN ((1, 2), (3, 4))} becomes
+ * {@code in((?))}. A list with any other item keeps all of its items, {@code IN (1, 2, x)} stays
+ * {@code in(?, ?, x)}. Comments are dropped (optimizer hints are kept, they change the plan),
+ * unquoted words are lowercased and whitespace is normalized. {@link #hash} runs the same scan
+ * but only folds the output into a 64-bit FNV-1a hash, so grouping large volumes of SQL text
+ * allocates nothing per character.
+ */
+public final class SqlFingerprint {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final char PLACEHOLDER = '?';
+
+    private final CharSequence sql;
+    private final StringBuilder out;
+    private long hash = FNV_OFFSET;
+    private char last;
+
+    // Open parentheses. A buffered group has emitted nothing yet: while it only holds items of
+    // one shape (depth 0 for ?, n for n nested collapsed groups) it is kept as a count
+    private int groups;
+    private boolean[] buffered = new boolean[8];
+    private int[] items = new int[8];
+    private int[] itemDepth = new int[8];
+    private boolean[] expectItem = new boolean[8];
+
+    private SqlFingerprint(CharSequence sql, StringBuilder out) {
+        this.sql = sql;
+        this.out = out;
+    }
+
+    public static String normalize(CharSequence sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        new SqlFingerprint(sql, out).scan();
+        return out.toString();
+    }
+
+    public static long hash(CharSequence sql) {
+        SqlFingerprint scanner = new SqlFingerprint(sql, null);
+        scanner.scan();
+        return scanner.hash;
+    }
+
+    // Hash as 16 hex digits, for storage and display
+    public static String id(CharSequence sql) {
+        String hex = Long.toHexString(hash(sql));
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    private void scan() {
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = comment(i);
+            } else if (c == '\'') {
+                i = quoted(i);
+                token(PLACEHOLDER);
+            } else if (c == '"') {
+                i = quotedIdentifier(i);
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                i = number(i);
+                token(PLACEHOLDER);
+            } else if (c == ':' && i + 1 < length && isIdentifierChar(sql.charAt(i + 1))) {
+                i++;
+                while (i < length && isIdentifierChar(sql.charAt(i))) {
+                    i++;
+                }
+                token(PLACEHOLDER);
+            } else if (Character.isLetter(c)) {
+                i = word(i);
+            } else {
+                i = operator(i);
+            }
+        }
+        flushBuffered();
+    }
+
+    // Word, or the N/Q/NQ prefix of a literal
+    private int word(int start) {
+        int length = sql.length();
+        int end = start + 1;
+        while (end < length && isIdentifierChar(sql.charAt(end))) {
+            end++;
+        }
+        if (end < length && sql.charAt(end) == '\'' && isLiteralPrefix(start, end)) {
+            char prefix = Character.toLowerCase(sql.charAt(end - 1));
+            int next = prefix == 'q' ? alternativeQuoted(end) : quoted(end);
+            token(PLACEHOLDER);
+            return next;
+        }
+        beginToken('a');
+        for (int i = start; i < end; i++) {
+            emit(Character.toLowerCase(sql.charAt(i)));
+        }
+        return end;
+    }
+
+    private boolean isLiteralPrefix(int start, int end) {
+        int length = end - start;
+        char first = Character.toLowerCase(sql.charAt(start));
+        if (length == 1) {
+            return first == 'n' || first == 'q';
+        }
+        return length == 2 && first == 'n' && Character.toLowerCase(sql.charAt(start + 1)) == 'q';
+    }
+
+    // '...' with '' as an escaped quote; returns the index after the closing quote
+    private int quoted(int start) {
+        int length = sql.length();
+        int i = start + 1;
+        while (i < length) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    // q'[...]', q'{...}', q'<...>', q'(...)' or q'X...X'
+    private int alternativeQuoted(int quote) {
+        int length = sql.length();
+        if (quote + 1 >= length) {
+            return length;
+        }
+        char open = sql.charAt(quote + 1);
+        char close = switch (open) {
+            case '[' -> ']';
+            case '{' -> '}';
+            case '<' -> '>';
+            case '(' -> ')';
+            default -> open;
+        };
+        for (int i = quote + 2; i + 1 < length; i++) {
+            if (sql.charAt(i) == close && sql.charAt(i + 1) == '\'') {
+                return i + 2;
+            }
+        }
+        return length;
+    }
+
+    // Quoted identifiers are case sensitive and kept as written
+    private int quotedIdentifier(int start) {
+        int length = sql.length();
+        int end = start + 1;
+        while (end < length && sql.charAt(end) != '"') {
+            end++;
+        }
+        end = Math.min(end + 1, length);
+        beginToken('a');
+        for (int i = start; i < end; i++) {
+            emit(sql.charAt(i));
+        }
+        return end;
+    }
+
+    // 12, 1.5, .5, 1e10, 2.5E-3, 1.5f, 2d
+    private int number(int start) {
+        int length = sql.length();
+        int i = start;
+        while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < length && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < length && Character.isDigit(sql.charAt(exponent))) {
+                i = exponent;
+                while (i < length && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        if (i < length && "fFdD".indexOf(sql.charAt(i)) >= 0
+                && (i + 1 >= length || !isIdentifierChar(sql.charAt(i + 1)))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Comments are dropped, hints are kept lowercased with their whitespace collapsed
+    private int comment(int start) {
+        int length = sql.length();
+        int end = start + 2;
+        while (end + 1 < length && !(sql.charAt(end) == '*' && sql.charAt(end + 1) == '/')) {
+            end++;
+        }
+        end = Math.min(end + 2, length);
+        if (start + 2 < length && sql.charAt(start + 2) == '+') {
+            beginToken('/');
+            boolean space = false;
+            for (int i = start; i < end; i++) {
+                char c = sql.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    space = true;
+                    continue;
+                }
+                if (space) {
+                    emit(' ');
+                    space = false;
+                }
+                emit(Character.toLowerCase(c));
+            }
+        }
+        return end;
+    }
+
+    private int operator(int start) {
+        char c = sql.charAt(start);
+        char next = start + 1 < sql.length() ? sql.charAt(start + 1) : 0;
+        boolean twoChars = switch (c) {
+            case '<' -> next == '=' || next == '>';
+            case '>', '!', ':' -> next == '=';
+            case '=' -> next == '>';
+            case '|' -> next == '|';
+            case '*' -> next == '*';
+            default -> false;
+        };
+        if (twoChars) {
+            token(c, next);
+            return start + 2;
+        }
+        token(c);
+        return start + 1;
+    }
+
+    private void token(char c) {
+        switch (c) {
+            case '(' -> open();
+            case ')' -> close();
+            case ',' -> comma();
+            case PLACEHOLDER -> item(0);
+            default -> {
+                beginToken(c);
+                emit(c);
+            }
+        }
+    }
+
+    private void token(char first, char second) {
+        beginToken(first);
+        emit(first);
+        emit(second);
+    }
+
+    private void open() {
+        if (groups > 0 && buffered[groups - 1] && !expectItem[groups - 1]) {
+            flushBuffered();
+        }
+        if (groups == buffered.length) {
+            int size = groups * 2;
+            buffered = Arrays.copyOf(buffered, size);
+            items = Arrays.copyOf(items, size);
+            itemDepth = Arrays.copyOf(itemDepth, size);
+            expectItem = Arrays.copyOf(expectItem, size);
+        }
+        buffered[groups] = true;
+        items[groups] = 0;
+        itemDepth[groups] = 0;
+        expectItem[groups] = true;
+        groups++;
+    }
+
+    private void close() {
+        if (groups == 0) {
+            single(')');
+            return;
+        }
+        int top = groups - 1;
+        if (buffered[top] && !expectItem[top] && items[top] > 0) {
+            // Only placeholders of one shape: the whole group is one item of its parent
+            groups--;
+            item(itemDepth[top] + 1);
+            return;
+        }
+        if (buffered[top]) {
+            flushBuffered();
+        }
+        groups--;
+        single(')');
+    }
+
+    private void comma() {
+        if (groups > 0 && buffered[groups - 1]) {
+            if (!expectItem[groups - 1]) {
+                expectItem[groups - 1] = true;
+                return;
+            }
+            flushBuffered();
+        }
+        single(',');
+    }
+
+    // A placeholder (depth 0) or a collapsed group of the given depth
+    private void item(int depth) {
+        if (groups > 0 && buffered[groups - 1]) {
+            int top = groups - 1;
+            if (expectItem[top] && (items[top] == 0 || itemDepth[top] == depth)) {
+                itemDepth[top] = depth;
+                items[top]++;
+                expectItem[top] = false;
+                return;
+            }
+            flushBuffered();
+        }
+        emitItem(depth);
+    }
+
+    // The buffered groups turned out not to be placeholder lists: write them out as they came
+    private void flushBuffered() {
+        int first = groups;
+        while (first > 0 && buffered[first - 1]) {
+            first--;
+        }
+        for (int group = first; group < groups; group++) {
+            buffered[group] = false;
+            single('(');
+            for (int item = 0; item < items[group]; item++) {
+                if (item > 0) {
+                    single(',');
+                }
+                emitItem(itemDepth[group]);
+            }
+            if (expectItem[group] && items[group] > 0) {
+                single(',');
+            }
+        }
+    }
+
+    private void emitItem(int depth) {
+        for (int i = 0; i < depth; i++) {
+            single('(');
+        }
+        single(PLACEHOLDER);
+        for (int i = 0; i < depth; i++) {
+            single(')');
+        }
+    }
+
+    private void single(char c) {
+        beginToken(c);
+        emit(c);
+    }
+
+    // Separates tokens with one space, except around '.', after '(' and before '(' ')' ','
+    private void beginToken(char first) {
+        if (first != PLACEHOLDER && first != '(' && first != ')' && first != ',') {
+            // Words and operators end any placeholder list
+            flushBuffered();
+        }
+        if (last != 0 && last != '(' && last != '.' && first != '(' && first != ')' && first != ',' && first != '.') {
+            emit(' ');
+        }
+    }
+
+    private void emit(char c) {
+        if (out != null) {
+            out.append(c);
+        }
+        hash = (hash ^ c) * FNV_PRIME;
+        last = c;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+}
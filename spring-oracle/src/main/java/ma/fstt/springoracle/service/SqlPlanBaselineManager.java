@@ -0,0 +1,424 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.dto.BaselineEvolveDTO;
+import ma.fstt.springoracle.dto.BaselineUsageDTO;
+import ma.fstt.springoracle.dto.BaselineUsageReportDTO;
+import ma.fstt.springoracle.dto.PlanBaselineDTO;
+import ma.fstt.springoracle.model.SlowQuery;
+import ma.fstt.springoracle.repository.SlowQueryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * SQL Plan Management through DBMS_SPM: loading known good plans into baselines from the
+ * cursor cache or AWR, evolving and accepting baseline plans, and reporting how the captured
+ * slow queries are covered by baselines. Evolve tasks are queued on the SQL tuning workers
+ * and run on their pool, so they count against the same limit as SQL tuning jobs.
+ */
+@Component
+public class SqlPlanBaselineManager {
+    private static final Logger logger = LoggerFactory.getLogger(SqlPlanBaselineManager.class);
+
+    public static final String SOURCE_AUTO = "AUTO";
+    public static final String SOURCE_CURSOR_CACHE = "CURSOR_CACHE";
+    public static final String SOURCE_AWR = "AWR";
+
+    private static final Pattern SQL_ID = Pattern.compile("[0-9a-z]{13}");
+
+    // Oracle's limit on an IN list
+    private static final int IN_LIST_LIMIT = 1000;
+
+    private static final String LOAD_FROM_CURSOR_CACHE_SQL = """
+            BEGIN
+                ? := DBMS_SPM.LOAD_PLANS_FROM_CURSOR_CACHE(
+                    sql_id => ?,
+                    plan_hash_value => ?,
+                    fixed => ?,
+                    enabled => 'YES'
+                );
+            END;
+            """;
+
+    private static final String AWR_SNAP_RANGE_SQL = """
+            SELECT MIN(snap_id), MAX(snap_id)
+            FROM dba_hist_sqlstat
+            WHERE sql_id = ? AND plan_hash_value = ?
+            """;
+
+    private static final String LOAD_FROM_AWR_SQL = """
+            BEGIN
+                ? := DBMS_SPM.LOAD_PLANS_FROM_AWR(
+                    begin_snap => ?,
+                    end_snap => ?,
+                    basic_filter => ?,
+                    fixed => ?,
+                    enabled => 'YES'
+                );
+            END;
+            """;
+
+    private static final String BASELINES_SQL = """
+            SELECT sql_handle, plan_name, signature, origin, enabled, accepted, fixed, reproduced,
+                   created, last_executed, DBMS_LOB.SUBSTR(sql_text, 4000, 1) AS sql_text
+            FROM dba_sql_plan_baselines
+            """;
+
+    private static final String SIGNATURE_SQL = """
+            SELECT TO_CHAR(MAX(exact_matching_signature))
+            FROM v$sqlstats
+            WHERE sql_id = ?
+            """;
+
+    private static final String CREATE_EVOLVE_TASK_SQL = """
+            BEGIN
+                ? := DBMS_SPM.CREATE_EVOLVE_TASK(sql_handle => ?, plan_name => ?, time_limit => ?);
+            END;
+            """;
+
+    private static final String EXECUTE_EVOLVE_TASK_SQL = """
+            BEGIN
+                ? := DBMS_SPM.EXECUTE_EVOLVE_TASK(task_name => ?);
+            END;
+            """;
+
+    private static final String REPORT_EVOLVE_TASK_SQL = """
+            BEGIN
+                ? := DBMS_SPM.REPORT_EVOLVE_TASK(task_name => ?, type => 'TEXT', level => 'TYPICAL', execution_name => ?);
+            END;
+            """;
+
+    private static final String IMPLEMENT_EVOLVE_TASK_SQL = """
+            BEGIN
+                ? := DBMS_SPM.IMPLEMENT_EVOLVE_TASK(task_name => ?);
+            END;
+            """;
+
+    private static final String ACCEPT_SQL = """
+            BEGIN
+                ? := DBMS_SPM.EVOLVE_SQL_PLAN_BASELINE(sql_handle => ?, plan_name => ?, verify => 'NO', commit => 'YES');
+            END;
+            """;
+
+    private static final String ALTER_SQL = """
+            BEGIN
+                ? := DBMS_SPM.ALTER_SQL_PLAN_BASELINE(
+                    sql_handle => ?,
+                    plan_name => ?,
+                    attribute_name => ?,
+                    attribute_value => ?
+                );
+            END;
+            """;
+
+    private static final String DROP_SQL = """
+            BEGIN
+                ? := DBMS_SPM.DROP_SQL_PLAN_BASELINE(sql_handle => ?, plan_name => ?);
+            END;
+            """;
+
+    private static final String USAGE_SQL = """
+            WITH cursors AS (
+                SELECT sql_id,
+                       MAX(exact_matching_signature) AS signature,
+                       MAX(sql_plan_baseline) AS used_baseline,
+                       COUNT(DISTINCT plan_hash_value) AS plans
+                FROM v$sql
+                WHERE sql_id IN (:sqlIds)
+                GROUP BY sql_id
+            )
+            SELECT c.sql_id, TO_CHAR(c.signature) AS signature, c.used_baseline, c.plans,
+                   COUNT(b.plan_name) AS baseline_plans,
+                   SUM(CASE WHEN b.enabled = 'YES' AND b.accepted = 'YES' THEN 1 ELSE 0 END) AS accepted_plans,
+                   SUM(CASE WHEN b.fixed = 'YES' THEN 1 ELSE 0 END) AS fixed_plans
+            FROM cursors c
+            LEFT JOIN dba_sql_plan_baselines b ON b.signature = c.signature
+            GROUP BY c.sql_id, c.signature, c.used_baseline, c.plans
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlTuningJobQueue tuningJobQueue;
+
+    @Autowired
+    private SlowQueryRepository slowQueryRepository;
+
+    @Value("${performance.spm.evolve-time-limit-seconds:300}")
+    private int evolveTimeLimitSeconds;
+
+    @Value("${performance.spm.evolve-queue-wait-seconds:300}")
+    private int evolveQueueWaitSeconds;
+
+    // Loads one plan of a statement into a baseline; AUTO tries the cursor cache, then AWR
+    public Map<String, Object> loadPlan(String sqlId, long planHashValue, String source, boolean fixed) {
+        validateSqlId(sqlId);
+        String from = source == null ? SOURCE_AUTO : source.toUpperCase();
+        if (!List.of(SOURCE_AUTO, SOURCE_CURSOR_CACHE, SOURCE_AWR).contains(from)) {
+            throw new IllegalArgumentException("Unknown source: " + source);
+        }
+
+        int loaded = 0;
+        String loadedFrom = null;
+        if (!SOURCE_AWR.equals(from)) {
+            loaded = callNumber(jdbcTemplate, LOAD_FROM_CURSOR_CACHE_SQL, sqlId, planHashValue, fixed ? "YES" : "NO");
+            loadedFrom = SOURCE_CURSOR_CACHE;
+        }
+        if (loaded == 0 && !SOURCE_CURSOR_CACHE.equals(from)) {
+            loaded = loadFromAwr(sqlId, planHashValue, fixed);
+            loadedFrom = SOURCE_AWR;
+        }
+        logger.info("Loaded " + loaded + " baseline plan(s) for SQL ID " + sqlId + " plan " + planHashValue
+                + " from " + loadedFrom);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sqlId", sqlId);
+        result.put("planHashValue", planHashValue);
+        result.put("source", loadedFrom);
+        result.put("fixed", fixed);
+        result.put("plansLoaded", loaded);
+        return result;
+    }
+
+    private int loadFromAwr(String sqlId, long planHashValue, boolean fixed) {
+        long[] range = jdbcTemplate.queryForObject(AWR_SNAP_RANGE_SQL,
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)},
+                sqlId, planHashValue);
+        if (range == null) {
+            return 0;
+        }
+        long firstSnap = range[0];
+        long lastSnap = range[1];
+        // sqlId is validated and the plan hash is numeric, so the filter can be built as text
+        String filter = "sql_id = '" + sqlId + "' AND plan_hash_value = " + planHashValue;
+        return callNumber(jdbcTemplate, LOAD_FROM_AWR_SQL, firstSnap - 1, lastSnap, filter, fixed ? "YES" : "NO");
+    }
+
+    // Baselines of one statement, or all of them
+    public List<PlanBaselineDTO> getBaselines(String sqlId) {
+        if (sqlId == null || sqlId.isBlank()) {
+            return jdbcTemplate.query(BASELINES_SQL + " ORDER BY created DESC", (rs, rowNum) -> toBaseline(rs));
+        }
+        validateSqlId(sqlId);
+        String signature = jdbcTemplate.queryForObject(SIGNATURE_SQL, String.class, sqlId);
+        if (signature == null) {
+            throw new IllegalArgumentException("SQL ID " + sqlId + " is not in the cursor cache");
+        }
+        return jdbcTemplate.query(BASELINES_SQL + " WHERE signature = ? ORDER BY created DESC",
+                (rs, rowNum) -> toBaseline(rs), new BigDecimal(signature));
+    }
+
+    // Verifies unaccepted plans of a baseline against the accepted ones; accept implements the findings
+    public BaselineEvolveDTO evolve(String sqlHandle, String planName, boolean accept) {
+        return tuningJobQueue.execute((ConnectionCallback<BaselineEvolveDTO>) connection -> {
+            String taskName;
+            try (CallableStatement create = connection.prepareCall(CREATE_EVOLVE_TASK_SQL)) {
+                create.registerOutParameter(1, Types.VARCHAR);
+                create.setString(2, sqlHandle);
+                create.setString(3, planName);
+                create.setInt(4, evolveTimeLimitSeconds);
+                create.execute();
+                taskName = create.getString(1);
+            }
+            String executionName;
+            try (CallableStatement execute = connection.prepareCall(EXECUTE_EVOLVE_TASK_SQL)) {
+                execute.registerOutParameter(1, Types.VARCHAR);
+                execute.setString(2, taskName);
+                execute.execute();
+                executionName = execute.getString(1);
+            }
+            String report;
+            try (CallableStatement fetch = connection.prepareCall(REPORT_EVOLVE_TASK_SQL)) {
+                fetch.registerOutParameter(1, Types.CLOB);
+                fetch.setString(2, taskName);
+                fetch.setString(3, executionName);
+                fetch.execute();
+                Clob clob = fetch.getClob(1);
+                report = clob != null ? clob.getSubString(1, (int) clob.length()) : null;
+            }
+            int accepted = 0;
+            if (accept) {
+                try (CallableStatement implement = connection.prepareCall(IMPLEMENT_EVOLVE_TASK_SQL)) {
+                    implement.registerOutParameter(1, Types.NUMERIC);
+                    implement.setString(2, taskName);
+                    implement.execute();
+                    accepted = implement.getInt(1);
+                }
+            }
+            logger.info("Evolve task " + taskName + " on " + sqlHandle + " accepted " + accepted + " plan(s)");
+            return BaselineEvolveDTO.builder()
+                    .sqlHandle(sqlHandle)
+                    .planName(planName)
+                    .taskName(taskName)
+                    .implemented(accept)
+                    .plansAccepted(accepted)
+                    .report(report)
+                    .build();
+        }, evolveTimeLimitSeconds + evolveQueueWaitSeconds, TimeUnit.SECONDS);
+    }
+
+    // Accepts a plan without verifying it and returns the DBMS_SPM report
+    public String accept(String sqlHandle, String planName) {
+        String report = callClobAsText(ACCEPT_SQL, sqlHandle, planName);
+        logger.info("Accepted baseline plan " + planName + " of " + sqlHandle);
+        return report;
+    }
+
+    // Changes the ENABLED and/or FIXED attribute of a baseline plan
+    public int alter(String sqlHandle, String planName, Boolean enabled, Boolean fixed) {
+        if (enabled == null && fixed == null) {
+            throw new IllegalArgumentException("Nothing to change: give enabled and/or fixed");
+        }
+        int altered = 0;
+        if (enabled != null) {
+            altered = callNumber(jdbcTemplate, ALTER_SQL, sqlHandle, planName, "ENABLED", enabled ? "YES" : "NO");
+        }
+        if (fixed != null) {
+            altered = callNumber(jdbcTemplate, ALTER_SQL, sqlHandle, planName, "FIXED", fixed ? "YES" : "NO");
+        }
+        return altered;
+    }
+
+    // Drops one plan, or the whole baseline when planName is null
+    public int drop(String sqlHandle, String planName) {
+        int dropped = callNumber(jdbcTemplate, DROP_SQL, sqlHandle, planName);
+        logger.info("Dropped " + dropped + " baseline plan(s) of " + sqlHandle);
+        return dropped;
+    }
+
+    // Baseline coverage of the most expensive captured slow queries
+    public BaselineUsageReportDTO usageReport(int limit) {
+        List<SlowQuery> queries = slowQueryRepository.findAll(
+                PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "elapsedTime"))).getContent();
+        List<String> sqlIds = queries.stream()
+                .map(SlowQuery::getSqlId)
+                .filter(id -> id != null)
+                .distinct()
+                .toList();
+
+        Map<String, BaselineUsageDTO> bySqlId = new HashMap<>();
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        for (int from = 0; from < sqlIds.size(); from += IN_LIST_LIMIT) {
+            List<String> chunk = sqlIds.subList(from, Math.min(from + IN_LIST_LIMIT, sqlIds.size()));
+            namedJdbcTemplate.query(USAGE_SQL, new MapSqlParameterSource("sqlIds", chunk), rs -> {
+                bySqlId.put(rs.getString("sql_id"), BaselineUsageDTO.builder()
+                        .sqlId(rs.getString("sql_id"))
+                        .inCursorCache(true)
+                        .signature(rs.getString("signature"))
+                        .cursorPlans(rs.getInt("plans"))
+                        .baselinePlans(rs.getInt("baseline_plans"))
+                        .acceptedPlans(rs.getInt("accepted_plans"))
+                        .fixedPlans(rs.getInt("fixed_plans"))
+                        .usedBaselinePlan(rs.getString("used_baseline"))
+                        .build());
+            });
+        }
+
+        List<BaselineUsageDTO> entries = new ArrayList<>();
+        int cached = 0, withAccepted = 0, using = 0;
+        for (SlowQuery query : queries) {
+            BaselineUsageDTO found = query.getSqlId() != null ? bySqlId.get(query.getSqlId()) : null;
+            BaselineUsageDTO entry = found != null
+                    ? found.toBuilder().slowQueryId(query.getId()).build()
+                    : BaselineUsageDTO.builder().slowQueryId(query.getId()).sqlId(query.getSqlId()).build();
+            if (entry.isInCursorCache()) {
+                cached++;
+            }
+            if (entry.getAcceptedPlans() > 0) {
+                withAccepted++;
+            }
+            if (entry.getUsedBaselinePlan() != null) {
+                using++;
+            }
+            entries.add(entry);
+        }
+
+        return BaselineUsageReportDTO.builder()
+                .statements(entries.size())
+                .inCursorCache(cached)
+                .withAcceptedBaseline(withAccepted)
+                .usingBaseline(using)
+                .coveragePercent(cached > 0 ? Math.round(using * 1000.0 / cached) / 10.0 : 0.0)
+                .entries(entries)
+                .build();
+    }
+
+    private static void validateSqlId(String sqlId) {
+        if (sqlId == null || !SQL_ID.matcher(sqlId).matches()) {
+            throw new IllegalArgumentException("Invalid SQL ID: " + sqlId);
+        }
+    }
+
+    // Runs a PL/SQL block whose first bind is a numeric result
+    private static int callNumber(JdbcTemplate template, String sql, Object... params) {
+        Integer result = template.execute((ConnectionCallback<Integer>) connection -> {
+            try (CallableStatement call = connection.prepareCall(sql)) {
+                call.registerOutParameter(1, Types.NUMERIC);
+                for (int i = 0; i < params.length; i++) {
+                    call.setObject(i + 2, params[i]);
+                }
+                call.execute();
+                return call.getInt(1);
+            }
+        });
+        return result != null ? result : 0;
+    }
+
+    // Same for blocks returning a CLOB, read as text
+    private String callClobAsText(String sql, Object... params) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (CallableStatement call = connection.prepareCall(sql)) {
+                call.registerOutParameter(1, Types.CLOB);
+                for (int i = 0; i < params.length; i++) {
+                    call.setObject(i + 2, params[i]);
+                }
+                call.execute();
+                Clob clob = call.getClob(1);
+                return clob != null ? clob.getSubString(1, (int) clob.length()) : null;
+            }
+        });
+    }
+
+    private static PlanBaselineDTO toBaseline(ResultSet rs) throws SQLException {
+        Timestamp created = rs.getTimestamp("created");
+        Timestamp lastExecuted = rs.getTimestamp("last_executed");
+        return PlanBaselineDTO.builder()
+                .sqlHandle(rs.getString("sql_handle"))
+                .planName(rs.getString("plan_name"))
+                .signature(rs.getString("signature"))
+                .origin(rs.getString("origin"))
+                .enabled("YES".equals(rs.getString("enabled")))
+                .accepted("YES".equals(rs.getString("accepted")))
+                .fixed("YES".equals(rs.getString("fixed")))
+                .reproduced("YES".equals(rs.getString("reproduced")))
+                .created(created != null ? created.toLocalDateTime() : null)
+                .lastExecuted(lastExecuted != null ? lastExecuted.toLocalDateTime() : null)
+                .sqlText(rs.getString("sql_text"))
+                .build();
+    }
+}
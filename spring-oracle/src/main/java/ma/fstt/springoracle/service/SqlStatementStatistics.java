@@ -0,0 +1,149 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.dto.SqlStatementStatsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of the application's own SQL, aggregated per statement fingerprint (see
+ * SqlFingerprint). Fed by the timing DataSource wrapper in DatabaseConfig.
+ * <p>
+ * All counters are LongAdders, which stripe updates across cells, so concurrent statements
+ * never contend on a shared counter. The fingerprint of a SQL string is computed once and
+ * then looked up by the string itself.
+ */
+@Component
+public class SqlStatementStatistics {
+    private static final double NANOS_PER_MS = 1_000_000.0;
+    private static final String OVERFLOW = "(other statements)";
+
+    private final int maxStatements;
+    private final Map<String, StatementStats> bySql = new ConcurrentHashMap<>();
+    private final Map<String, StatementStats> byFingerprint = new ConcurrentHashMap<>();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder connectionFailures = new LongAdder();
+    private final LongAdder connectionWaitNanos = new LongAdder();
+    private final LongAccumulator maxConnectionWaitNanos = new LongAccumulator(Math::max, 0);
+
+    @Autowired
+    public SqlStatementStatistics(@Value("${performance.sql-timing.max-statements:2000}") int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public static final class StatementStats {
+        private final String fingerprint;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder executionNanos = new LongAdder();
+        private final LongAccumulator maxExecutionNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder roundTrips = new LongAdder();
+
+        private StatementStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        // One round trip per execution; fetches add theirs through recordFetch
+        public void recordExecution(long nanos, boolean failed) {
+            executions.increment();
+            executionNanos.add(nanos);
+            maxExecutionNanos.accumulate(nanos);
+            roundTrips.increment();
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        public void recordFetch(long rowCount, long nanos, long extraRoundTrips) {
+            rows.add(rowCount);
+            fetchNanos.add(nanos);
+            roundTrips.add(extraRoundTrips);
+        }
+    }
+
+    public StatementStats statement(String sql) {
+        StatementStats stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String fingerprint = fingerprint(sql);
+        if (byFingerprint.size() >= maxStatements && !byFingerprint.containsKey(fingerprint)) {
+            fingerprint = OVERFLOW;
+        }
+        stats = byFingerprint.computeIfAbsent(fingerprint, StatementStats::new);
+        // Statements built with inlined literals would grow this map without bound
+        if (bySql.size() < maxStatements * 4) {
+            bySql.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    public void recordConnection(long waitNanos, boolean failed) {
+        if (failed) {
+            connectionFailures.increment();
+            return;
+        }
+        connections.increment();
+        connectionWaitNanos.add(waitNanos);
+        maxConnectionWaitNanos.accumulate(waitNanos);
+    }
+
+    public List<SqlStatementStatsDTO> top(int limit, String orderBy) {
+        List<SqlStatementStatsDTO> result = new ArrayList<>(byFingerprint.size());
+        for (StatementStats stats : byFingerprint.values()) {
+            long executions = stats.executions.sum();
+            long rows = stats.rows.sum();
+            double totalMs = stats.executionNanos.sum() / NANOS_PER_MS;
+            result.add(SqlStatementStatsDTO.builder()
+                    .fingerprint(stats.fingerprint)
+                    .executions(executions)
+                    .errors(stats.errors.sum())
+                    .totalMs(totalMs)
+                    .avgMs(executions > 0 ? totalMs / executions : 0)
+                    .maxMs(stats.maxExecutionNanos.get() / NANOS_PER_MS)
+                    .fetchMs(stats.fetchNanos.sum() / NANOS_PER_MS)
+                    .rows(rows)
+                    .roundTrips(stats.roundTrips.sum())
+                    .rowsPerExecution(executions > 0 ? (double) rows / executions : 0)
+                    .build());
+        }
+        Comparator<SqlStatementStatsDTO> order = switch (orderBy == null ? "totalTime" : orderBy) {
+            case "executions" -> Comparator.comparingLong(SqlStatementStatsDTO::getExecutions);
+            case "avgTime" -> Comparator.comparingDouble(SqlStatementStatsDTO::getAvgMs);
+            case "rows" -> Comparator.comparingLong(SqlStatementStatsDTO::getRows);
+            case "roundTrips" -> Comparator.comparingLong(SqlStatementStatsDTO::getRoundTrips);
+            case "fetchTime" -> Comparator.comparingDouble(SqlStatementStatsDTO::getFetchMs);
+            case "totalTime" -> Comparator.comparingDouble(dto -> dto.getTotalMs() + dto.getFetchMs());
+            default -> throw new IllegalArgumentException("Unknown order: " + orderBy);
+        };
+        result.sort(order.reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public Map<String, Object> connectionStats() {
+        long count = connections.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("acquired", count);
+        stats.put("failed", connectionFailures.sum());
+        stats.put("totalWaitMs", connectionWaitNanos.sum() / NANOS_PER_MS);
+        stats.put("avgWaitMs", count > 0 ? connectionWaitNanos.sum() / NANOS_PER_MS / count : 0);
+        stats.put("maxWaitMs", maxConnectionWaitNanos.get() / NANOS_PER_MS);
+        stats.put("statements", byFingerprint.size());
+        return stats;
+    }
+
+    static String fingerprint(String sql) {
+        return SqlFingerprint.normalize(sql);
+    }
+}
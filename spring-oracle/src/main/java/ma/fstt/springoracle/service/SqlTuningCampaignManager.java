@@ -0,0 +1,148 @@
+package ma.fstt.springoracle.service;
+
+import ma.fstt.springoracle.dto.SqlTuningCampaignDTO;
+import ma.fstt.springoracle.dto.SqlTuningJobDTO;
+import ma.fstt.springoracle.exception.ResourceNotFoundException;
+import ma.fstt.springoracle.model.SlowQuery;
+import ma.fstt.springoracle.model.SqlTuningCampaign;
+import ma.fstt.springoracle.model.SqlTuningJob;
+import ma.fstt.springoracle.repository.SlowQueryRepository;
+import ma.fstt.springoracle.repository.SqlTuningCampaignRepository;
+import ma.fstt.springoracle.repository.SqlTuningJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Tunes a whole set of captured slow queries in one request.
+ * <p>
+ * A campaign submits one job per statement to SqlTuningJobQueue, so the load on the instance
+ * stays bounded by the tuning workers, statements whose plan and statistics are unchanged are
+ * answered from the recommendation cache, and each statement can still be followed or
+ * cancelled on its own. Campaign progress and the per-statement estimated benefit are read
+ * back from the jobs.
+ */
+@Component
+public class SqlTuningCampaignManager {
+    private static final Logger logger = LoggerFactory.getLogger(SqlTuningCampaignManager.class);
+
+    @Autowired
+    private SqlTuningJobQueue jobQueue;
+
+    @Autowired
+    private SqlTuningCampaignRepository campaignRepository;
+
+    @Autowired
+    private SqlTuningJobRepository jobRepository;
+
+    @Autowired
+    private SlowQueryRepository slowQueryRepository;
+
+    // Tunes the given slow queries, or the slowest identified ones when none are given
+    public SqlTuningCampaignDTO start(String name, List<Long> slowQueryIds, int limit) {
+        List<Long> selected;
+        if (slowQueryIds != null && !slowQueryIds.isEmpty()) {
+            selected = List.copyOf(new LinkedHashSet<>(slowQueryIds));
+            for (Long id : selected) {
+                if (!slowQueryRepository.existsById(id)) {
+                    throw new ResourceNotFoundException("Slow query not found: " + id);
+                }
+            }
+        } else {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            selected = slowQueryRepository.findByStatusOrderByElapsedTimeDesc("IDENTIFIED").stream()
+                    .limit(limit)
+                    .map(SlowQuery::getId)
+                    .toList();
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No slow queries to tune");
+        }
+
+        SqlTuningCampaign campaign = new SqlTuningCampaign();
+        campaign.setName(name != null && !name.isBlank() ? name : "Campaign " + LocalDateTime.now().withNano(0));
+        campaign.setCreatedAt(LocalDateTime.now());
+        campaign.setStatementCount(selected.size());
+        // The campaign is only saved once the queue has room for all of it
+        jobQueue.submitAll(selected, () -> campaignRepository.save(campaign).getId());
+        logger.info("Started tuning campaign " + campaign.getId() + " over " + selected.size() + " statements");
+        return toDTO(campaign);
+    }
+
+    public SqlTuningCampaignDTO get(Long campaignId) {
+        return toDTO(findCampaign(campaignId));
+    }
+
+    public List<SqlTuningCampaignDTO> getAll() {
+        return campaignRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    // Cancels every job of the campaign that has not finished yet
+    public SqlTuningCampaignDTO cancel(Long campaignId) {
+        SqlTuningCampaign campaign = findCampaign(campaignId);
+        for (SqlTuningJob job : jobRepository.findByCampaignIdOrderByIdAsc(campaignId)) {
+            if (SqlTuningJobQueue.QUEUED.equals(job.getStatus()) || SqlTuningJobQueue.RUNNING.equals(job.getStatus())) {
+                try {
+                    jobQueue.cancel(job.getId());
+                } catch (IllegalStateException e) {
+                    // Finished in the meantime
+                }
+            }
+        }
+        return toDTO(campaign);
+    }
+
+    private SqlTuningCampaign findCampaign(Long campaignId) {
+        return campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new ResourceNotFoundException("Tuning campaign not found: " + campaignId));
+    }
+
+    private SqlTuningCampaignDTO toDTO(SqlTuningCampaign campaign) {
+        List<SqlTuningJobDTO> jobs = jobRepository.findByCampaignIdOrderByIdAsc(campaign.getId()).stream()
+                .map(jobQueue::describe)
+                .sorted(Comparator.comparing(SqlTuningJobDTO::getEstimatedBenefit,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+
+        int queued = 0, running = 0, completed = 0, failed = 0, cancelled = 0, fromCache = 0;
+        for (SqlTuningJobDTO job : jobs) {
+            switch (job.getStatus()) {
+                case SqlTuningJobQueue.QUEUED -> queued++;
+                case SqlTuningJobQueue.RUNNING -> running++;
+                case SqlTuningJobQueue.COMPLETED -> completed++;
+                case SqlTuningJobQueue.FAILED -> failed++;
+                default -> cancelled++;
+            }
+            if (Boolean.TRUE.equals(job.getFromCache())) {
+                fromCache++;
+            }
+        }
+        int finished = completed + failed + cancelled;
+
+        return SqlTuningCampaignDTO.builder()
+                .id(campaign.getId())
+                .name(campaign.getName())
+                .createdAt(campaign.getCreatedAt())
+                .status(queued + running > 0 ? SqlTuningJobQueue.RUNNING : SqlTuningJobQueue.COMPLETED)
+                .statements(jobs.size())
+                .queued(queued)
+                .running(running)
+                .completed(completed)
+                .failed(failed)
+                .cancelled(cancelled)
+                .fromCache(fromCache)
+                .percentComplete(jobs.isEmpty() ? 100.0 : Math.round(finished * 1000.0 / jobs.size()) / 10.0)
+                .jobs(jobs)
+                .build();
+    }
+}
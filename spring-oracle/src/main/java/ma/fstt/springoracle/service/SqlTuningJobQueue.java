@@ -0,0 +1,553 @@
+package ma.fstt.springoracle.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.dto.SqlTuningJobDTO;
+import ma.fstt.springoracle.exception.ResourceNotFoundException;
+import ma.fstt.springoracle.model.SlowQuery;
+import ma.fstt.springoracle.model.SqlTuningJob;
+import ma.fstt.springoracle.model.SqlTuningReport;
+import ma.fstt.springoracle.repository.SlowQueryRepository;
+import ma.fstt.springoracle.repository.SqlTuningJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Runs DBMS_SQLTUNE tuning tasks in the background.
+ * <p>
+ * Jobs are persisted in SQL_TUNING_JOBS and executed by a fixed number of workers, each on a
+ * connection from a dedicated pool of the same size, so an hour-long tuning task never holds
+ * one of the application's own connections. Submissions beyond the queue capacity are refused.
+ * Progress of a running job is read from DBA_ADVISOR_LOG; cancelling a running job cancels
+ * its advisor task from another session. A statement whose plan and statistics have not changed
+ * since its last tuning is answered from TuningRecommendationCache without queueing.
+ */
+@Component
+public class SqlTuningJobQueue {
+    private static final Logger logger = LoggerFactory.getLogger(SqlTuningJobQueue.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String CANCELLED = "CANCELLED";
+
+    private static final Set<String> ACTIVE = Set.of(QUEUED, RUNNING);
+
+    private static final String CREATE_TASK_SQL = """
+            DECLARE
+                l_task VARCHAR2(128);
+            BEGIN
+                l_task := DBMS_SQLTUNE.CREATE_TUNING_TASK(
+                    sql_id => ?,
+                    task_name => ?,
+                    time_limit => ?
+                );
+            END;
+            """;
+
+    private static final String EXECUTE_TASK_SQL = """
+            BEGIN
+                DBMS_SQLTUNE.EXECUTE_TUNING_TASK(task_name => ?);
+            END;
+            """;
+
+    private static final String REPORT_TASK_SQL = """
+            BEGIN
+                ? := DBMS_SQLTUNE.REPORT_TUNING_TASK(task_name => ?, type => 'TEXT', level => 'TYPICAL');
+            END;
+            """;
+
+    private static final String DROP_TASK_SQL = """
+            BEGIN
+                DBMS_SQLTUNE.DROP_TUNING_TASK(task_name => ?);
+            EXCEPTION
+                WHEN OTHERS THEN NULL;
+            END;
+            """;
+
+    private static final String CANCEL_TASK_SQL = """
+            BEGIN
+                DBMS_SQLTUNE.CANCEL_TUNING_TASK(task_name => ?);
+            END;
+            """;
+
+    // BENEFIT is recorded in hundredths of a percent
+    private static final String BENEFIT_SQL = """
+            SELECT MAX(benefit) / 100
+            FROM dba_advisor_recommendations
+            WHERE owner = USER AND task_name = ?
+            """;
+
+    private record TuningOutcome(String report, Double estimatedBenefit) {
+    }
+
+    private static final String PROGRESS_SQL = """
+            SELECT status, status_message, pct_completion_time, recommendation_count
+            FROM dba_advisor_log
+            WHERE owner = USER AND task_name = ?
+            """;
+
+    @Autowired
+    private SqlTuningJobRepository jobRepository;
+
+    @Autowired
+    private SlowQueryRepository slowQueryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TuningRecommendationCache recommendationCache;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${spring.datasource.driver-class-name}")
+    private String driverClassName;
+
+    @Value("${performance.tuning.workers:2}")
+    private int workerCount;
+
+    @Value("${performance.tuning.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${performance.tuning.time-limit-seconds:3600}")
+    private int timeLimitSeconds;
+
+    private HikariDataSource tuningDataSource;
+    private JdbcTemplate tuningTemplate;
+    private ThreadPoolExecutor workers;
+
+    private final Map<Long, Future<?>> pending = new ConcurrentHashMap<>();
+    private final Set<Long> cancelRequested = ConcurrentHashMap.newKeySet();
+
+    // Serialise the submissions of one statement without holding up the others
+    private final Object[] statementLocks = IntStream.range(0, 64).mapToObj(i -> new Object()).toArray();
+
+    // Queue places promised to a batch still being submitted, guarded by this
+    private int reserved;
+
+    @PostConstruct
+    public void init() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("sql-tuning");
+        config.setDriverClassName(driverClassName);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(workerCount);
+        config.setMinimumIdle(0);
+        config.setConnectionTimeout(20000);
+        // Connections are only opened once a job runs
+        config.setInitializationFailTimeout(-1);
+        tuningDataSource = new HikariDataSource(config);
+        tuningTemplate = new JdbcTemplate(tuningDataSource);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "sql-tuning-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Jobs left behind by a previous run can no longer be reached
+        List<SqlTuningJob> orphans = jobRepository.findByStatusIn(ACTIVE);
+        for (SqlTuningJob job : orphans) {
+            job.setStatus(FAILED);
+            job.setErrorMessage("Interrupted by application restart");
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        jobRepository.saveAll(orphans);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        tuningDataSource.close();
+    }
+
+    // Queues a tuning job for a captured slow query, or returns the one already queued or running
+    public SqlTuningJobDTO submit(Long slowQueryId) {
+        return submit(slowQueryId, null);
+    }
+
+    // Same, on behalf of a campaign; a statement already being tuned joins the campaign
+    public SqlTuningJobDTO submit(Long slowQueryId, Long campaignId) {
+        return submit(slowQueryId, campaignId, null);
+    }
+
+    // places, when given, holds the reserved queue places left to the calling batch
+    private SqlTuningJobDTO submit(Long slowQueryId, Long campaignId, int[] places) {
+        SlowQuery query = slowQueryRepository.findById(slowQueryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Slow query not found: " + slowQueryId));
+        // Dictionary lookups run before any lock is taken
+        TuningRecommendationCache.PlanKey key = resolvePlanKey(query.getSqlId());
+        Optional<SqlTuningReport> cached = recommendationCache.lookup(key);
+
+        synchronized (statementLocks[Math.floorMod(slowQueryId, statementLocks.length)]) {
+            var active = jobRepository.findFirstBySlowQueryIdAndStatusIn(slowQueryId, ACTIVE);
+            if (active.isPresent()) {
+                SqlTuningJob existing = active.get();
+                if (campaignId != null && existing.getCampaignId() == null) {
+                    existing.setCampaignId(campaignId);
+                    existing = jobRepository.save(existing);
+                }
+                return toDTO(existing, false);
+            }
+
+            SqlTuningJob job = new SqlTuningJob();
+            job.setSlowQueryId(slowQueryId);
+            job.setSqlId(query.getSqlId());
+            job.setCampaignId(campaignId);
+            job.setSubmittedAt(LocalDateTime.now());
+            if (key != null) {
+                job.setPlanHashValue(key.planHashValue());
+                job.setStatsTimestamp(key.statsTimestamp());
+            }
+            if (cached.isPresent()) {
+                String recommendations = cached.get().getRecommendations();
+                job.setFromCache(true);
+                job.setStartedAt(job.getSubmittedAt());
+                job.setEstimatedBenefit(cached.get().getEstimatedBenefit());
+                markOptimized(slowQueryId, recommendations);
+                finish(job, COMPLETED, recommendations, null);
+                return toDTO(job, false);
+            }
+
+            job.setFromCache(false);
+            job.setStatus(QUEUED);
+            job = jobRepository.save(job);
+            job.setTaskName("TUNE_" + query.getSqlId() + "_" + job.getId());
+            job = jobRepository.save(job);
+
+            Long jobId = job.getId();
+            if (!enqueue(jobId, places)) {
+                jobRepository.delete(job);
+                throw new IllegalStateException("Tuning queue is full (" + queueCapacity + " jobs waiting)");
+            }
+            logger.info("Queued tuning job " + jobId + " for SQL ID " + query.getSqlId());
+            return toDTO(job, false);
+        }
+    }
+
+    // Hands a saved job to the workers, using up one of the batch's places when it has some left
+    private synchronized boolean enqueue(Long jobId, int[] places) {
+        boolean hasPlace = places != null && places[0] > 0;
+        if (!hasPlace && remainingCapacity() <= 0) {
+            return false;
+        }
+        try {
+            pending.put(jobId, workers.submit(() -> run(jobId)));
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        if (hasPlace) {
+            places[0]--;
+            reserved--;
+        }
+        return true;
+    }
+
+    // Queues a whole batch or nothing; the owner (a campaign) is only created once the room is reserved
+    public List<SqlTuningJobDTO> submitAll(List<Long> slowQueryIds, Supplier<Long> owner) {
+        int[] places = {slowQueryIds.size()};
+        synchronized (this) {
+            // Cache hits never reach the queue, so this is the worst case
+            if (places[0] > remainingCapacity()) {
+                throw new IllegalStateException("Tuning queue cannot take " + slowQueryIds.size() + " statements");
+            }
+            reserved += places[0];
+        }
+        try {
+            Long campaignId = owner.get();
+            List<SqlTuningJobDTO> jobs = new ArrayList<>();
+            for (Long slowQueryId : slowQueryIds) {
+                jobs.add(submit(slowQueryId, campaignId, places));
+            }
+            return jobs;
+        } finally {
+            // Places left by cache hits, statements already queued or a failure
+            synchronized (this) {
+                reserved -= places[0];
+            }
+        }
+    }
+
+    // Runs other long running advisor work on a tuning worker, so it shares the pool with the jobs
+    <T> T execute(ConnectionCallback<T> work, long timeout, TimeUnit unit) {
+        Future<T> future;
+        synchronized (this) {
+            try {
+                future = remainingCapacity() > 0 ? workers.submit(() -> tuningTemplate.execute(work)) : null;
+            } catch (RejectedExecutionException e) {
+                future = null;
+            }
+        }
+        if (future == null) {
+            throw new IllegalStateException("Tuning queue is full (" + queueCapacity + " jobs waiting)");
+        }
+        try {
+            return future.get(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for a tuning worker");
+        } catch (TimeoutException e) {
+            // Only takes effect while still queued, a running advisor call is bounded by its own time limit
+            future.cancel(false);
+            workers.purge();
+            throw new IllegalStateException("No result from the tuning worker within " + timeout + " " + unit);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // Free places in the queue, less those promised to a batch
+    public synchronized int remainingCapacity() {
+        return workers.getQueue().remainingCapacity() - reserved;
+    }
+
+    // Blocks until a job ends or the timeout expires, then returns its latest state
+    public SqlTuningJobDTO await(Long jobId, long timeout, TimeUnit unit) {
+        Future<?> future = pending.get(jobId);
+        if (future != null) {
+            try {
+                future.get(timeout, unit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException | TimeoutException e) {
+                // The persisted job carries the outcome
+            }
+        }
+        return getJob(jobId);
+    }
+
+    public SqlTuningJobDTO getJob(Long jobId) {
+        return toDTO(findJob(jobId), true);
+    }
+
+    // Summary of a job already loaded, without its recommendations
+    SqlTuningJobDTO describe(SqlTuningJob job) {
+        return toDTO(job, false);
+    }
+
+    public List<SqlTuningJobDTO> getJobs() {
+        return jobRepository.findAllByOrderBySubmittedAtDesc().stream()
+                .map(job -> toDTO(job, false))
+                .toList();
+    }
+
+    public SqlTuningJobDTO cancel(Long jobId) {
+        SqlTuningJob job = findJob(jobId);
+        if (!ACTIVE.contains(job.getStatus())) {
+            throw new IllegalStateException("Tuning job " + jobId + " is already " + job.getStatus());
+        }
+
+        cancelRequested.add(jobId);
+        Future<?> future = pending.get(jobId);
+        if (future != null && future.cancel(false)) {
+            // Still waiting in the queue, it will never start
+            workers.purge();
+            pending.remove(jobId);
+            cancelRequested.remove(jobId);
+            finish(job, CANCELLED, null, null);
+        } else if (RUNNING.equals(job.getStatus())) {
+            try {
+                jdbcTemplate.update(CANCEL_TASK_SQL, job.getTaskName());
+            } catch (DataAccessException e) {
+                // Task not created yet; the worker checks for the request before executing
+                logger.warn("Could not cancel advisor task " + job.getTaskName() + ": " + e.getMessage());
+            }
+        }
+        logger.info("Cancellation requested for tuning job " + jobId);
+        return getJob(jobId);
+    }
+
+    private SqlTuningJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Tuning job not found: " + jobId));
+    }
+
+    private void run(Long jobId) {
+        SqlTuningJob queued = jobRepository.findById(jobId).orElse(null);
+        if (queued == null || !QUEUED.equals(queued.getStatus())) {
+            pending.remove(jobId);
+            return;
+        }
+        queued.setStatus(RUNNING);
+        queued.setStartedAt(LocalDateTime.now());
+        SqlTuningJob job = jobRepository.save(queued);
+
+        String taskName = job.getTaskName();
+        try {
+            TuningOutcome outcome = tuningTemplate.execute((ConnectionCallback<TuningOutcome>) connection -> {
+                try (CallableStatement create = connection.prepareCall(CREATE_TASK_SQL)) {
+                    create.setString(1, job.getSqlId());
+                    create.setString(2, taskName);
+                    create.setInt(3, timeLimitSeconds);
+                    create.execute();
+                }
+                if (cancelRequested.contains(jobId)) {
+                    throw new CancellationException();
+                }
+                try (CallableStatement execute = connection.prepareCall(EXECUTE_TASK_SQL)) {
+                    execute.setString(1, taskName);
+                    execute.execute();
+                }
+                String report;
+                try (CallableStatement fetch = connection.prepareCall(REPORT_TASK_SQL)) {
+                    fetch.registerOutParameter(1, Types.CLOB);
+                    fetch.setString(2, taskName);
+                    fetch.execute();
+                    Clob clob = fetch.getClob(1);
+                    report = clob != null ? clob.getSubString(1, (int) clob.length()) : null;
+                }
+                try (PreparedStatement benefit = connection.prepareStatement(BENEFIT_SQL)) {
+                    benefit.setString(1, taskName);
+                    try (ResultSet rs = benefit.executeQuery()) {
+                        if (!rs.next()) {
+                            return new TuningOutcome(report, null);
+                        }
+                        double value = rs.getDouble(1);
+                        return new TuningOutcome(report, rs.wasNull() ? null : value);
+                    }
+                }
+            });
+            String report = outcome.report();
+            job.setEstimatedBenefit(outcome.estimatedBenefit());
+
+            if (cancelRequested.contains(jobId)) {
+                finish(job, CANCELLED, null, null);
+                return;
+            }
+            markOptimized(job.getSlowQueryId(), report);
+            if (job.getPlanHashValue() != null) {
+                recommendationCache.store(new TuningRecommendationCache.PlanKey(
+                        job.getSqlId(), job.getPlanHashValue(), job.getStatsTimestamp()), report, job.getEstimatedBenefit());
+            }
+            finish(job, COMPLETED, report, null);
+            logger.info("Tuning job " + jobId + " completed for SQL ID " + job.getSqlId());
+
+        } catch (Exception e) {
+            if (cancelRequested.contains(jobId)) {
+                finish(job, CANCELLED, null, null);
+            } else {
+                logger.error("Tuning job " + jobId + " failed for SQL ID " + job.getSqlId(), e);
+                finish(job, FAILED, null, e.getMessage());
+            }
+        } finally {
+            try {
+                tuningTemplate.update(DROP_TASK_SQL, taskName);
+            } catch (DataAccessException e) {
+                logger.warn("Could not drop advisor task " + taskName + ": " + e.getMessage());
+            }
+            cancelRequested.remove(jobId);
+            pending.remove(jobId);
+        }
+    }
+
+    private TuningRecommendationCache.PlanKey resolvePlanKey(String sqlId) {
+        try {
+            return recommendationCache.resolveKey(sqlId);
+        } catch (DataAccessException e) {
+            logger.warn("Could not resolve plan of SQL ID " + sqlId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void markOptimized(Long slowQueryId, String recommendations) {
+        slowQueryRepository.findById(slowQueryId).ifPresent(query -> {
+            query.setOptimizationRecommendations(recommendations);
+            query.setStatus("OPTIMIZED");
+            slowQueryRepository.save(query);
+        });
+    }
+
+    private void finish(SqlTuningJob job, String status, String recommendations, String error) {
+        job.setStatus(status);
+        job.setRecommendations(recommendations);
+        job.setErrorMessage(error != null && error.length() > 4000 ? error.substring(0, 4000) : error);
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepository.save(job);
+    }
+
+    private SqlTuningJobDTO toDTO(SqlTuningJob job, boolean withRecommendations) {
+        SqlTuningJobDTO dto = SqlTuningJobDTO.builder()
+                .id(job.getId())
+                .slowQueryId(job.getSlowQueryId())
+                .sqlId(job.getSqlId())
+                .planHashValue(job.getPlanHashValue())
+                .fromCache(job.getFromCache())
+                .campaignId(job.getCampaignId())
+                .estimatedBenefit(job.getEstimatedBenefit())
+                .taskName(job.getTaskName())
+                .status(job.getStatus())
+                .submittedAt(job.getSubmittedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .errorMessage(job.getErrorMessage())
+                .recommendations(withRecommendations ? job.getRecommendations() : null)
+                .build();
+
+        if (RUNNING.equals(job.getStatus())) {
+            try {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(PROGRESS_SQL, job.getTaskName());
+                if (!rows.isEmpty()) {
+                    Map<String, Object> row = rows.get(0);
+                    dto.setAdvisorStatus((String) row.get("status"));
+                    dto.setAdvisorMessage((String) row.get("status_message"));
+                    dto.setPercentComplete(row.get("pct_completion_time") != null
+                            ? ((Number) row.get("pct_completion_time")).intValue() : null);
+                    dto.setRecommendationCount(row.get("recommendation_count") != null
+                            ? ((Number) row.get("recommendation_count")).intValue() : null);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Could not read advisor progress for " + job.getTaskName() + ": " + e.getMessage());
+            }
+        }
+        return dto;
+    }
+}
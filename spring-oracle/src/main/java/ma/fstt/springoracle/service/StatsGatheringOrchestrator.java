@@ -0,0 +1,420 @@
+package ma.fstt.springoracle.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import ma.fstt.springoracle.dto.StatsGatheringRunDTO;
+import ma.fstt.springoracle.dto.StatsGatheringTaskDTO;
+import ma.fstt.springoracle.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Gathers optimizer statistics where they are stale, most urgent first.
+ * <p>
+ * A run reads DBA_TAB_STATISTICS and DBA_TAB_MODIFICATIONS (after flushing the monitoring
+ * info) for the requested schemas, and queues every table that is stale or was never analyzed
+ * by priority: never analyzed, then truncated, then the largest share of rows modified. A
+ * configurable number of workers, each on a connection of a dedicated pool, gather the queue
+ * with the requested degree. No table is started once the time budget is spent or the run is
+ * cancelled; what is left is reported as skipped. One run at a time; recent runs are kept in
+ * memory for progress reporting.
+ */
+@Component
+public class StatsGatheringOrchestrator {
+    private static final Logger logger = LoggerFactory.getLogger(StatsGatheringOrchestrator.class);
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String SKIPPED = "SKIPPED";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String BUDGET_EXHAUSTED = "BUDGET_EXHAUSTED";
+
+    private static final Pattern SCHEMA = Pattern.compile("[A-Z][A-Z0-9_$#]*");
+
+    private static final String FLUSH_MONITORING_SQL = """
+            BEGIN
+                DBMS_STATS.FLUSH_DATABASE_MONITORING_INFO;
+            END;
+            """;
+
+    private static final String STALE_TABLES_SQL = """
+            SELECT s.owner, s.table_name, s.num_rows, s.last_analyzed,
+                   NVL(m.inserts, 0) + NVL(m.updates, 0) + NVL(m.deletes, 0) AS modifications,
+                   m.truncated
+            FROM dba_tab_statistics s
+            LEFT JOIN dba_tab_modifications m
+                   ON m.table_owner = s.owner AND m.table_name = s.table_name AND m.partition_name IS NULL
+            WHERE s.owner IN (:owners)
+              AND s.object_type = 'TABLE'
+              AND s.stattype_locked IS NULL
+              AND s.table_name NOT LIKE 'BIN$%'
+              AND (s.stale_stats = 'YES' OR s.last_analyzed IS NULL)
+            """;
+
+    private static final String GATHER_SQL = """
+            BEGIN
+                DBMS_STATS.GATHER_TABLE_STATS(
+                    ownname => ?,
+                    tabname => ?,
+                    estimate_percent => DBMS_STATS.AUTO_SAMPLE_SIZE,
+                    method_opt => 'FOR ALL COLUMNS SIZE AUTO',
+                    degree => ?,
+                    cascade => TRUE,
+                    no_invalidate => DBMS_STATS.AUTO_INVALIDATE
+                );
+            END;
+            """;
+
+    private static final Comparator<Task> PRIORITY = Comparator
+            .comparing((Task task) -> !task.neverAnalyzed)
+            .thenComparing(task -> !task.truncated)
+            .thenComparing(Comparator.comparingDouble(Task::changeRatio).reversed())
+            .thenComparing(Comparator.comparingLong((Task task) -> task.modifications).reversed());
+
+    private static final class Task {
+        private final String owner;
+        private final String tableName;
+        private final Long numRows;
+        private final long modifications;
+        private final boolean truncated;
+        private final boolean neverAnalyzed;
+        private final LocalDateTime lastAnalyzed;
+        private volatile String status = PENDING;
+        private volatile LocalDateTime startedAt;
+        private volatile Long durationMs;
+        private volatile String error;
+
+        private Task(String owner, String tableName, Long numRows, long modifications, boolean truncated,
+                     LocalDateTime lastAnalyzed) {
+            this.owner = owner;
+            this.tableName = tableName;
+            this.numRows = numRows;
+            this.modifications = modifications;
+            this.truncated = truncated;
+            this.neverAnalyzed = lastAnalyzed == null;
+            this.lastAnalyzed = lastAnalyzed;
+        }
+
+        private double changeRatio() {
+            return numRows != null && numRows > 0 ? (double) modifications / numRows : modifications;
+        }
+    }
+
+    private static final class Run {
+        private final long id;
+        private final List<String> schemas;
+        private final int degree;
+        private final int concurrency;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final LocalDateTime deadline;
+        private final List<Task> tasks;
+        private final PriorityBlockingQueue<Task> queue;
+        private final AtomicInteger activeWorkers;
+        private volatile boolean cancelled;
+        private volatile String status = RUNNING;
+        private volatile LocalDateTime finishedAt;
+
+        private Run(long id, List<String> schemas, int degree, int concurrency, Duration budget, List<Task> tasks) {
+            this.id = id;
+            this.schemas = schemas;
+            this.degree = degree;
+            this.concurrency = concurrency;
+            this.deadline = startedAt.plus(budget);
+            this.tasks = tasks;
+            this.queue = new PriorityBlockingQueue<>(Math.max(tasks.size(), 1), PRIORITY);
+            this.queue.addAll(tasks);
+            this.activeWorkers = new AtomicInteger(concurrency);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${spring.datasource.driver-class-name}")
+    private String driverClassName;
+
+    @Value("${performance.stats.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${performance.stats.history:20}")
+    private int history;
+
+    private HikariDataSource statsDataSource;
+    private JdbcTemplate statsTemplate;
+    private ExecutorService workers;
+
+    private final AtomicLong runIds = new AtomicLong();
+    private final LinkedHashMap<Long, Run> runs = new LinkedHashMap<>();
+    private Run activeRun;
+
+    @PostConstruct
+    public void init() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("stats-gathering");
+        config.setDriverClassName(driverClassName);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maxConcurrency);
+        config.setMinimumIdle(0);
+        config.setConnectionTimeout(20000);
+        // Connections are only opened once a run starts
+        config.setInitializationFailTimeout(-1);
+        statsDataSource = new HikariDataSource(config);
+        statsTemplate = new JdbcTemplate(statsDataSource);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "stats-gathering-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        statsDataSource.close();
+    }
+
+    // Stale tables of the given schemas in the order a run would gather them
+    public List<StatsGatheringTaskDTO> findStaleTables(List<String> schemas, int limit) {
+        return findStale(normalizeSchemas(schemas)).stream()
+                .limit(limit)
+                .map(StatsGatheringOrchestrator::toDTO)
+                .toList();
+    }
+
+    public synchronized StatsGatheringRunDTO start(List<String> schemas, int degree, int concurrency,
+                                                   int budgetMinutes, int maxTables) {
+        if (activeRun != null) {
+            throw new IllegalStateException("Statistics run " + activeRun.id + " is still running");
+        }
+        if (degree < 1 || concurrency < 1 || budgetMinutes < 1 || maxTables < 1) {
+            throw new IllegalArgumentException("degree, concurrency, budgetMinutes and maxTables must be positive");
+        }
+        List<String> owners = normalizeSchemas(schemas);
+        List<Task> tasks = findStale(owners);
+        if (tasks.size() > maxTables) {
+            tasks = new ArrayList<>(tasks.subList(0, maxTables));
+        }
+        int workerCount = Math.min(Math.min(concurrency, maxConcurrency), Math.max(tasks.size(), 1));
+
+        Run run = new Run(runIds.incrementAndGet(), owners, degree, workerCount,
+                Duration.ofMinutes(budgetMinutes), tasks);
+        runs.put(run.id, run);
+        while (runs.size() > history) {
+            runs.remove(runs.keySet().iterator().next());
+        }
+        activeRun = run;
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(() -> work(run));
+        }
+        logger.info("Statistics run " + run.id + " started: " + tasks.size() + " stale tables in " + owners
+                + ", " + workerCount + " workers, degree " + degree + ", budget " + budgetMinutes + " min");
+        return toDTO(run);
+    }
+
+    public synchronized StatsGatheringRunDTO getRun(long runId) {
+        return toDTO(findRun(runId));
+    }
+
+    public synchronized List<StatsGatheringRunDTO> getRuns() {
+        List<StatsGatheringRunDTO> result = new ArrayList<>();
+        for (Run run : runs.values()) {
+            result.add(0, toDTO(run));
+        }
+        return result;
+    }
+
+    // Tables already being gathered finish; no new one starts
+    public synchronized StatsGatheringRunDTO cancel(long runId) {
+        Run run = findRun(runId);
+        if (run != activeRun) {
+            throw new IllegalStateException("Statistics run " + runId + " is already " + run.status);
+        }
+        run.cancelled = true;
+        logger.info("Cancellation requested for statistics run " + runId);
+        return toDTO(run);
+    }
+
+    private Run findRun(long runId) {
+        Run run = runs.get(runId);
+        if (run == null) {
+            throw new ResourceNotFoundException("Statistics run not found: " + runId);
+        }
+        return run;
+    }
+
+    private void work(Run run) {
+        try {
+            while (!run.cancelled && LocalDateTime.now().isBefore(run.deadline)) {
+                Task task = run.queue.poll();
+                if (task == null) {
+                    break;
+                }
+                gather(run, task);
+            }
+        } finally {
+            if (run.activeWorkers.decrementAndGet() == 0) {
+                finish(run);
+            }
+        }
+    }
+
+    private void gather(Run run, Task task) {
+        task.startedAt = LocalDateTime.now();
+        task.status = RUNNING;
+        long start = System.nanoTime();
+        try {
+            statsTemplate.update(GATHER_SQL, task.owner, task.tableName, run.degree);
+            task.status = COMPLETED;
+        } catch (DataAccessException e) {
+            logger.warn("Gathering statistics on " + task.owner + "." + task.tableName + " failed: " + e.getMessage());
+            task.error = e.getMostSpecificCause().getMessage();
+            task.status = FAILED;
+        } finally {
+            task.durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    private synchronized void finish(Run run) {
+        Task left;
+        while ((left = run.queue.poll()) != null) {
+            left.status = SKIPPED;
+        }
+        run.status = run.cancelled ? CANCELLED
+                : run.tasks.stream().anyMatch(task -> SKIPPED.equals(task.status)) ? BUDGET_EXHAUSTED
+                : COMPLETED;
+        run.finishedAt = LocalDateTime.now();
+        if (activeRun == run) {
+            activeRun = null;
+        }
+        logger.info("Statistics run " + run.id + " " + run.status + " after "
+                + Duration.between(run.startedAt, run.finishedAt).toSeconds() + " s");
+    }
+
+    private List<Task> findStale(List<String> owners) {
+        try {
+            jdbcTemplate.execute(FLUSH_MONITORING_SQL);
+        } catch (DataAccessException e) {
+            // Modification counts may then lag by up to the monitoring flush interval
+            logger.warn("Could not flush database monitoring info: " + e.getMessage());
+        }
+        List<Task> tasks = new NamedParameterJdbcTemplate(jdbcTemplate).query(STALE_TABLES_SQL,
+                new MapSqlParameterSource("owners", owners), (rs, rowNum) -> {
+                    Timestamp lastAnalyzed = rs.getTimestamp("last_analyzed");
+                    long numRows = rs.getLong("num_rows");
+                    return new Task(rs.getString("owner"), rs.getString("table_name"),
+                            rs.wasNull() ? null : numRows,
+                            rs.getLong("modifications"),
+                            "YES".equals(rs.getString("truncated")),
+                            lastAnalyzed != null ? lastAnalyzed.toLocalDateTime() : null);
+                });
+        List<Task> ordered = new ArrayList<>(tasks);
+        ordered.sort(PRIORITY);
+        return ordered;
+    }
+
+    private static List<String> normalizeSchemas(List<String> schemas) {
+        if (schemas == null || schemas.isEmpty()) {
+            throw new IllegalArgumentException("At least one schema is required");
+        }
+        List<String> owners = new ArrayList<>();
+        for (String schema : schemas) {
+            String owner = schema.trim().toUpperCase();
+            if (!SCHEMA.matcher(owner).matches()) {
+                throw new IllegalArgumentException("Invalid schema name: " + schema);
+            }
+            if (!owners.contains(owner)) {
+                owners.add(owner);
+            }
+        }
+        return owners;
+    }
+
+    private static StatsGatheringTaskDTO toDTO(Task task) {
+        return StatsGatheringTaskDTO.builder()
+                .owner(task.owner)
+                .tableName(task.tableName)
+                .numRows(task.numRows)
+                .modifications(task.modifications)
+                .truncated(task.truncated)
+                .neverAnalyzed(task.neverAnalyzed)
+                .changePercent(task.numRows != null && task.numRows > 0
+                        ? Math.round(task.modifications * 1000.0 / task.numRows) / 10.0 : null)
+                .lastAnalyzed(task.lastAnalyzed)
+                .status(task.status)
+                .startedAt(task.startedAt)
+                .durationMs(task.durationMs)
+                .error(task.error)
+                .build();
+    }
+
+    private static StatsGatheringRunDTO toDTO(Run run) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        List<StatsGatheringTaskDTO> tables = new ArrayList<>();
+        for (Task task : run.tasks) {
+            StatsGatheringTaskDTO dto = toDTO(task);
+            counts.merge(dto.getStatus(), 1, Integer::sum);
+            tables.add(dto);
+        }
+        int done = counts.getOrDefault(COMPLETED, 0) + counts.getOrDefault(FAILED, 0) + counts.getOrDefault(SKIPPED, 0);
+        return StatsGatheringRunDTO.builder()
+                .id(run.id)
+                .status(run.status)
+                .schemas(run.schemas)
+                .degree(run.degree)
+                .concurrency(run.concurrency)
+                .startedAt(run.startedAt)
+                .deadline(run.deadline)
+                .finishedAt(run.finishedAt)
+                .total(run.tasks.size())
+                .pending(counts.getOrDefault(PENDING, 0))
+                .running(counts.getOrDefault(RUNNING, 0))
+                .completed(counts.getOrDefault(COMPLETED, 0))
+                .failed(counts.getOrDefault(FAILED, 0))
+                .skipped(counts.getOrDefault(SKIPPED, 0))
+                .percentComplete(run.tasks.isEmpty() ? 100.0 : Math.round(done * 1000.0 / run.tasks.size()) / 10.0)
+                .tables(tables)
+                .build();
+    }
+}
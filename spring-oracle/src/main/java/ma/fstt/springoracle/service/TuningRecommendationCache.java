@@ -0,0 +1,153 @@
+package ma.fstt.springoracle.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import ma.fstt.springoracle.model.SqlTuningReport;
+import ma.fstt.springoracle.repository.SqlTuningReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tuning reports keyed by (sql_id, plan_hash_value, statistics timestamp).
+ * <p>
+ * The key is taken from the cursor cache: the plan the statement last ran with, and the most
+ * recent LAST_ANALYZED of the tables and indexes in that plan. As long as neither changes, a
+ * new tuning request is answered with the stored report instead of a new advisor run. A
+ * statement whose cursor has aged out has no key and is always tuned.
+ */
+@Component
+public class TuningRecommendationCache implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(TuningRecommendationCache.class);
+
+    private static final String PLAN_SQL = """
+            SELECT plan_hash_value
+            FROM v$sqlstats
+            WHERE sql_id = ?
+            ORDER BY last_active_time DESC
+            FETCH FIRST 1 ROWS ONLY
+            """;
+
+    private static final String STATS_TIMESTAMP_SQL = """
+            WITH plan_objects AS (
+                SELECT DISTINCT object_owner, object_name
+                FROM v$sql_plan
+                WHERE sql_id = ? AND plan_hash_value = ? AND object_owner IS NOT NULL
+            )
+            SELECT MAX(last_analyzed) FROM (
+                SELECT s.last_analyzed
+                FROM dba_tab_statistics s
+                JOIN plan_objects p ON s.owner = p.object_owner AND s.table_name = p.object_name
+                UNION ALL
+                SELECT s.last_analyzed
+                FROM dba_ind_statistics s
+                JOIN plan_objects p ON s.owner = p.object_owner AND s.index_name = p.object_name
+                UNION ALL
+                SELECT s.last_analyzed
+                FROM dba_indexes i
+                JOIN plan_objects p ON i.owner = p.object_owner AND i.index_name = p.object_name
+                JOIN dba_tab_statistics s ON s.owner = i.table_owner AND s.table_name = i.table_name
+            )
+            """;
+
+    public record PlanKey(String sqlId, long planHashValue, LocalDateTime statsTimestamp) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlTuningReportRepository reportRepository;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong uncacheable = new AtomicLong();
+
+    // Current key of a statement, or null when its plan is no longer in the cursor cache
+    public PlanKey resolveKey(String sqlId) {
+        List<Long> plans = jdbcTemplate.queryForList(PLAN_SQL, Long.class, sqlId);
+        if (plans.isEmpty() || plans.get(0) == null) {
+            return null;
+        }
+        long planHashValue = plans.get(0);
+        Timestamp analyzed = jdbcTemplate.queryForObject(STATS_TIMESTAMP_SQL, Timestamp.class, sqlId, planHashValue);
+        return new PlanKey(sqlId, planHashValue, analyzed != null ? analyzed.toLocalDateTime() : null);
+    }
+
+    public Optional<SqlTuningReport> lookup(PlanKey key) {
+        if (key == null) {
+            uncacheable.incrementAndGet();
+            return Optional.empty();
+        }
+        Optional<SqlTuningReport> report = reportRepository
+                .findFirstBySqlIdAndPlanHashValueAndStatsTimestampOrderByCreatedAtDesc(
+                        key.sqlId(), key.planHashValue(), key.statsTimestamp());
+        if (report.isEmpty()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        SqlTuningReport cached = report.get();
+        cached.setLastUsedAt(LocalDateTime.now());
+        cached.setUseCount(cached.getUseCount() != null ? cached.getUseCount() + 1 : 1);
+        reportRepository.save(cached);
+        logger.info("Reusing tuning report for SQL ID " + key.sqlId() + " plan " + key.planHashValue());
+        return Optional.of(cached);
+    }
+
+    public void store(PlanKey key, String recommendations, Double estimatedBenefit) {
+        if (key == null) {
+            return;
+        }
+        SqlTuningReport report = new SqlTuningReport();
+        report.setSqlId(key.sqlId());
+        report.setPlanHashValue(key.planHashValue());
+        report.setStatsTimestamp(key.statsTimestamp());
+        report.setCreatedAt(LocalDateTime.now());
+        report.setUseCount(0L);
+        report.setEstimatedBenefit(estimatedBenefit);
+        report.setRecommendations(recommendations);
+        reportRepository.save(report);
+    }
+
+    public void clear() {
+        reportRepository.deleteAllInBatch();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount + uncacheable.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("uncacheable", uncacheable.get());
+        stats.put("hitRatePercent", requests > 0 ? Math.round(hitCount * 10000.0 / requests) / 100.0 : 0.0);
+        stats.put("entries", reportRepository.count());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("oracle.tuning.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("oracle.tuning.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("oracle.tuning.cache.requests", uncacheable, AtomicLong::get)
+                .tag("result", "uncacheable")
+                .register(registry);
+    }
+}
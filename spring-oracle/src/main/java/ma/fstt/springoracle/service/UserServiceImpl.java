@@ -23,6 +23,7 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final DictionaryCache dictionaryCache;
 
     @Override
     @Transactional
@@ -46,6 +47,7 @@ public class UserServiceImpl implements UserService {
                 userDTO.getTemporaryTablespace().toUpperCase()
         );
         jdbcTemplate.execute(createUserSql);
+        dictionaryCache.invalidateUser(userDTO.getUsername());
 
         // Set quota if specified
         if (userDTO.getQuotaLimit() != null) {
@@ -101,6 +103,9 @@ public class UserServiceImpl implements UserService {
         try {
             // Drop the user directly with CASCADE
             jdbcTemplate.execute(String.format("DROP USER \"%s\" CASCADE", username));
+            dictionaryCache.invalidateUser(username);
+            dictionaryCache.invalidateObjects();
+            dictionaryCache.invalidateGrants();
 
             // Remove from repository
             userRepository.findByUsername(username)
@@ -0,0 +1,111 @@
+package ma.fstt.springoracle.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AshWindowTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void emptyWindow() {
+        AshWindow window = new AshWindow(8, 16);
+        assertEquals(AshWindow.NONE, window.lastSampleId());
+        assertEquals(0, window.read(AshWindow.Reader::size));
+        assertEquals(0, (int) window.read(reader -> reader.firstRowAtOrAfter(START)));
+    }
+
+    @Test
+    void firstRowAtOrAfterFindsTheStartOfARange() {
+        AshWindow window = new AshWindow(100, 16);
+        // Several sessions share each sample time, one sample per second
+        for (int second = 0; second < 10; second++) {
+            for (int session = 0; session < 3; session++) {
+                window.append(second, START + second * 1_000L, session, null, null, null, true, 0);
+            }
+        }
+        window.read(reader -> {
+            assertEquals(30, reader.size());
+            assertEquals(0, reader.firstRowAtOrAfter(Long.MIN_VALUE));
+            assertEquals(0, reader.firstRowAtOrAfter(START));
+            assertEquals(12, reader.firstRowAtOrAfter(START + 4_000));
+            assertEquals(15, reader.firstRowAtOrAfter(START + 4_001));
+            assertEquals(27, reader.firstRowAtOrAfter(START + 9_000));
+            assertEquals(30, reader.firstRowAtOrAfter(START + 9_001));
+            return null;
+        });
+    }
+
+    @Test
+    void ringKeepsTheNewestRowsInOrder() {
+        AshWindow window = new AshWindow(8, 16);
+        for (int i = 0; i < 21; i++) {
+            window.append(i, START + i * 1_000L, i, null, null, null, i % 2 == 0, i * 10L);
+        }
+        assertEquals(20, window.lastSampleId());
+        assertEquals(START + 20_000, window.lastSampleTime());
+        window.read(reader -> {
+            assertEquals(8, reader.size());
+            for (int row = 0; row < reader.size(); row++) {
+                assertEquals(13 + row, reader.sampleId(row));
+                assertEquals(13 + row, reader.sessionId(row));
+                assertEquals((13 + row) * 10L, reader.timeWaited(row));
+                assertEquals((13 + row) % 2 == 0, reader.onCpu(row));
+            }
+            // Rows before the oldest kept one are gone
+            assertEquals(0, reader.firstRowAtOrAfter(START));
+            assertEquals(3, reader.firstRowAtOrAfter(START + 15_500));
+            assertEquals(8, reader.firstRowAtOrAfter(START + 20_001));
+            return null;
+        });
+    }
+
+    @Test
+    void dictionaryIsCompactedToTheLiveRows() {
+        AshWindow window = new AshWindow(4, 6);
+        for (int i = 0; i < 100; i++) {
+            String sqlId = "sql" + i;
+            window.append(i, START + i * 1_000L, 1, sqlId, "db file sequential read", i % 5 == 0 ? null : "User I/O",
+                    false, 0);
+            window.read(reader -> {
+                // Four sql_ids, one event and one wait class are live, the back-off allows twice that
+                assertTrue(reader.dictionarySize() <= 12, "dictionary size " + reader.dictionarySize());
+                for (int row = 0; row < reader.size(); row++) {
+                    long sampleId = reader.sampleId(row);
+                    assertEquals("sql" + sampleId, reader.string(reader.sqlIdRef(row)));
+                    assertEquals("db file sequential read", reader.string(reader.eventRef(row)));
+                    if (sampleId % 5 == 0) {
+                        assertEquals(AshWindow.NONE, reader.waitClassRef(row));
+                        assertNull(reader.string(reader.waitClassRef(row)));
+                    } else {
+                        assertEquals("User I/O", reader.string(reader.waitClassRef(row)));
+                    }
+                }
+                return null;
+            });
+        }
+        window.read(reader -> {
+            assertEquals(4, reader.size());
+            assertFalse(reader.onCpu(0));
+            return null;
+        });
+    }
+
+    @Test
+    void repeatedStringsShareOneEntry() {
+        AshWindow window = new AshWindow(100, 1_000);
+        for (int i = 0; i < 50; i++) {
+            window.append(i, START + i, i, "abcd" + (i % 3), "CPU", null, true, 0);
+        }
+        window.read(reader -> {
+            assertEquals(4, reader.dictionarySize());
+            assertEquals(reader.sqlIdRef(0), reader.sqlIdRef(3));
+            assertEquals(reader.eventRef(0), reader.eventRef(49));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package ma.fstt.springoracle.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CounterDeltaEngineTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final double STARTUP = 1_700_000_000;
+
+    @Test
+    void firstSampleOnlySetsTheBaseline() {
+        CounterDeltaEngine engine = new CounterDeltaEngine(List.of("user commits", "DB time"));
+        assertEquals(0, engine.latest().intervalSeconds());
+        assertNaN(engine.latest().get(0));
+
+        CounterDeltaEngine.Rates rates = engine.update(new double[]{100, 5_000}, 0, STARTUP);
+        assertEquals(0, rates.intervalSeconds());
+        assertFalse(rates.instanceRestarted());
+        assertNaN(rates.get(0));
+        assertNaN(rates.get(1));
+    }
+
+    @Test
+    void ratesArePerSecondBetweenConsecutiveSamples() {
+        CounterDeltaEngine engine = new CounterDeltaEngine(List.of("user commits", "DB time"));
+        engine.update(new double[]{100, 5_000}, 0, STARTUP);
+        CounterDeltaEngine.Rates rates = engine.update(new double[]{150, 5_000}, 10 * SECOND, STARTUP);
+        assertEquals(10, rates.intervalSeconds());
+        assertEquals(5, rates.get(0));
+        assertEquals(0, rates.get(1));
+        assertEquals(5, engine.latest().get(engine.indexOf("user commits")));
+        assertNaN(rates.get(engine.indexOf("not tracked")));
+    }
+
+    @Test
+    void counterGoingBackwardsRebases() {
+        CounterDeltaEngine engine = new CounterDeltaEngine(List.of("a", "b"));
+        engine.update(new double[]{1_000, 10}, 0, STARTUP);
+        // Counter a wrapped or was reset on its own, b keeps counting
+        CounterDeltaEngine.Rates wrapped = engine.update(new double[]{40, 30}, 2 * SECOND, STARTUP);
+        assertNaN(wrapped.get(0));
+        assertEquals(10, wrapped.get(1));
+        assertFalse(wrapped.instanceRestarted());
+
+        CounterDeltaEngine.Rates next = engine.update(new double[]{60, 50}, 4 * SECOND, STARTUP);
+        assertEquals(10, next.get(0));
+        assertEquals(10, next.get(1));
+    }
+
+    @Test
+    void restartDiscardsEveryRateOnce() {
+        CounterDeltaEngine engine = new CounterDeltaEngine(List.of("a", "b"));
+        engine.update(new double[]{10, 20}, 0, STARTUP);
+        // Higher values than before, but counted from a new instance start
+        CounterDeltaEngine.Rates restarted = engine.update(new double[]{500, 600}, SECOND, STARTUP + 3_600);
+        assertTrue(restarted.instanceRestarted());
+        assertNaN(restarted.get(0));
+        assertNaN(restarted.get(1));
+
+        CounterDeltaEngine.Rates next = engine.update(new double[]{510, 620}, 2 * SECOND, STARTUP + 3_600);
+        assertFalse(next.instanceRestarted());
+        assertEquals(10, next.get(0));
+        assertEquals(20, next.get(1));
+    }
+
+    @Test
+    void missingValuesAndNonPositiveIntervalsGiveNaN() {
+        CounterDeltaEngine engine = new CounterDeltaEngine(List.of("a", "b"));
+        engine.update(new double[]{10, 20}, SECOND, STARTUP);
+        CounterDeltaEngine.Rates missing = engine.update(new double[]{20, Double.NaN}, 2 * SECOND, STARTUP);
+        assertEquals(10, missing.get(0));
+        assertNaN(missing.get(1));
+        // b reappears: no previous value to compare with
+        assertNaN(engine.update(new double[]{30, 40}, 3 * SECOND, STARTUP).get(1));
+
+        CounterDeltaEngine.Rates sameInstant = engine.update(new double[]{40, 50}, 3 * SECOND, STARTUP);
+        assertNaN(sameInstant.get(0));
+        assertEquals(10, engine.update(new double[]{50, 60}, 4 * SECOND, STARTUP).get(0));
+    }
+
+    @Test
+    void toMapTurnsNaNIntoNull() {
+        CounterDeltaEngine engine = new CounterDeltaEngine(List.of("a", "b"));
+        engine.update(new double[]{0, 0}, 0, STARTUP);
+        Map<String, Double> map = engine.update(new double[]{4, Double.NaN}, 2 * SECOND, STARTUP).toMap();
+        assertEquals(2.0, map.get("a"));
+        assertTrue(map.containsKey("b"));
+        assertNull(map.get("b"));
+    }
+
+    @Test
+    void wrongNumberOfValuesIsRejected() {
+        CounterDeltaEngine engine = new CounterDeltaEngine(List.of("a", "b"));
+        assertThrows(IllegalArgumentException.class, () -> engine.update(new double[]{1}, 0, STARTUP));
+    }
+
+    private static void assertNaN(double value) {
+        assertTrue(Double.isNaN(value), "expected NaN, got " + value);
+    }
+}
@@ -0,0 +1,157 @@
+package ma.fstt.springoracle.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GorillaBlockTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void singleSample() {
+        long[] times = {START};
+        double[][] rows = {{1.5, Double.NaN}};
+        assertRoundTrip(times, rows, 2);
+    }
+
+    @Test
+    void regularIntervalsCostOneBitPerTimestamp() {
+        int samples = 100;
+        long[] times = new long[samples];
+        double[][] rows = new double[samples][];
+        for (int i = 0; i < samples; i++) {
+            times[i] = START + i * 10_000L;
+            rows[i] = new double[]{42.0};
+        }
+        GorillaBlock block = assertRoundTrip(times, rows, 1);
+        // First sample: 64 + 64 bits; second: 64 bit delta-of-delta escape; then 1 + 1 bit per sample
+        assertEquals(128 + (4 + 64 + 1) + (samples - 2) * 2, block.bitLength());
+    }
+
+    @Test
+    void deltaOfDeltaRangeBoundaries() {
+        long[] deltaOfDeltas = {
+                0, -63, 64, 65, -64,
+                -255, 256, 257, -256,
+                -2047, 2048, 2049, -2048,
+                5_000_000_000L, -5_000_000_000L + 1};
+        long[] times = new long[deltaOfDeltas.length + 2];
+        double[][] rows = new double[times.length][];
+        long delta = 10_000;
+        times[0] = START;
+        times[1] = START + delta;
+        for (int i = 0; i < deltaOfDeltas.length; i++) {
+            delta += deltaOfDeltas[i];
+            assertTrue(delta > 0);
+            times[i + 2] = times[i + 1] + delta;
+        }
+        for (int i = 0; i < times.length; i++) {
+            rows[i] = new double[]{i};
+        }
+        assertRoundTrip(times, rows, 1);
+    }
+
+    @Test
+    void xorEncodingOfEqualNaNAndEdgeValues() {
+        double nanWithPayload = Double.longBitsToDouble(0x7ff8_0000_0000_00ffL);
+        double[] column = {
+                1.0, 1.0, 1.0,                            // unchanged: one bit each
+                Math.nextUp(1.0), 1.0,                     // one low bit: leading zeros above 31
+                Double.NaN, Double.NaN, nanWithPayload,    // missing values, NaN payload kept
+                0.0, -0.0, 0.0,                            // sign bit only
+                Double.longBitsToDouble(0x8000_0000_0000_0001L), // 64 meaningful bits
+                Double.MAX_VALUE, Double.MIN_VALUE,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                12.5, 12.75, 12.625, 12.5};               // reuse of the previous bit window
+        long[] times = new long[column.length];
+        double[][] rows = new double[column.length][];
+        for (int i = 0; i < column.length; i++) {
+            times[i] = START + i * 10_000L;
+            rows[i] = new double[]{column[i], i % 3 == 0 ? Double.NaN : 7.0};
+        }
+        assertRoundTrip(times, rows, 2);
+    }
+
+    @Test
+    void scanHonoursRangeAndStop() {
+        GorillaBlock block = new GorillaBlock(1, 1);
+        for (int i = 0; i < 50; i++) {
+            block.append(START + i * 1_000L, new double[]{i});
+        }
+        List<Long> visited = new ArrayList<>();
+        block.scan(START + 10_000, START + 19_500, (time, values) -> {
+            visited.add(time);
+            return true;
+        });
+        assertEquals(10, visited.size());
+        assertEquals(START + 10_000, visited.get(0));
+        assertEquals(START + 19_000, visited.get(9));
+
+        visited.clear();
+        block.scan(Long.MIN_VALUE, Long.MAX_VALUE, (time, values) -> {
+            visited.add(time);
+            return visited.size() < 3;
+        });
+        assertEquals(3, visited.size());
+    }
+
+    @Test
+    void restoredBlockReadsTheSame() {
+        long[] times = new long[300];
+        double[][] rows = new double[times.length][];
+        long time = START;
+        for (int i = 0; i < times.length; i++) {
+            time += 10_000 + (i * 37 % 11) - 5;
+            times[i] = time;
+            rows[i] = new double[]{Math.round(i * 1.37 * 100) / 100.0, i % 7 == 0 ? Double.NaN : 2048.0, 99.5 - i % 3};
+        }
+        GorillaBlock block = assertRoundTrip(times, rows, 3);
+        GorillaBlock restored = GorillaBlock.restore(3, block.firstTime(), block.lastTime(), block.count(),
+                block.bitLength(), block.words().clone());
+        assertScan(restored, times, rows);
+    }
+
+    // Appends every row to a block grown from a single word, seals it and reads it all back
+    private static GorillaBlock assertRoundTrip(long[] times, double[][] rows, int columns) {
+        GorillaBlock block = new GorillaBlock(columns, 1);
+        for (int i = 0; i < times.length; i++) {
+            block.append(times[i], rows[i]);
+        }
+        block.seal();
+        assertEquals(times.length, block.count());
+        assertEquals(times[0], block.firstTime());
+        assertEquals(times[times.length - 1], block.lastTime());
+        assertEquals((block.bitLength() + 63) / 64, block.words().length);
+        assertScan(block, times, rows);
+        return block;
+    }
+
+    private static void assertScan(GorillaBlock block, long[] times, double[][] rows) {
+        List<Long> decodedTimes = new ArrayList<>();
+        List<long[]> decodedBits = new ArrayList<>();
+        block.scan(Long.MIN_VALUE, Long.MAX_VALUE, (time, values) -> {
+            decodedTimes.add(time);
+            long[] bits = new long[values.length];
+            for (int column = 0; column < values.length; column++) {
+                bits[column] = Double.doubleToRawLongBits(values[column]);
+            }
+            decodedBits.add(bits);
+            return true;
+        });
+        assertEquals(times.length, decodedTimes.size());
+        for (int i = 0; i < times.length; i++) {
+            assertEquals(times[i], decodedTimes.get(i), "time of sample " + i);
+            long[] expected = new long[rows[i].length];
+            for (int column = 0; column < expected.length; column++) {
+                expected[column] = Double.doubleToRawLongBits(rows[i][column]);
+            }
+            assertArrayEquals(expected, decodedBits.get(i), "values of sample " + i);
+        }
+    }
+}
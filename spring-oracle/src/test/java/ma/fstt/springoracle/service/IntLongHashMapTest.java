@@ -0,0 +1,64 @@
+package ma.fstt.springoracle.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IntLongHashMapTest {
+
+    @Test
+    void addSumsPerKey() {
+        IntLongHashMap map = new IntLongHashMap(4);
+        map.add(7, 1);
+        map.add(7, 2);
+        map.add(0, 5);
+        map.add(-1, 3);
+        map.add(7, -1);
+        assertEquals(3, map.size());
+        assertEquals(Map.of(7, 2L, 0, 5L, -1, 3L), contents(map));
+    }
+
+    @Test
+    void growsFromTheSmallestTableAndKeepsEveryEntry() {
+        IntLongHashMap map = new IntLongHashMap(0);
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Spread and repeated keys, including the extremes
+            int key = i % 3 == 0 ? Integer.MIN_VALUE + i : i * 31;
+            map.add(key, i);
+            expected.merge(key, (long) i, Long::sum);
+            if (i % 1_000 == 0) {
+                assertEquals(expected.size(), map.size());
+            }
+        }
+        map.add(Integer.MAX_VALUE, 1);
+        expected.merge(Integer.MAX_VALUE, 1L, Long::sum);
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, contents(map));
+    }
+
+    @Test
+    void collidingKeysAreProbedNotOverwritten() {
+        // Multiples of a large power of two only differ in their high bits
+        IntLongHashMap map = new IntLongHashMap(16);
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < 64; i++) {
+            int key = i << 24;
+            map.add(key, i + 1);
+            map.add(key, 1);
+            expected.put(key, i + 2L);
+        }
+        assertEquals(64, map.size());
+        assertEquals(expected, contents(map));
+    }
+
+    private static Map<Integer, Long> contents(IntLongHashMap map) {
+        Map<Integer, Long> contents = new HashMap<>();
+        map.forEach((key, value) -> assertNull(contents.put(key, value), "key " + key + " visited twice"));
+        return contents;
+    }
+}
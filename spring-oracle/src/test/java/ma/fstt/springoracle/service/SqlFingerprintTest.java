@@ -0,0 +1,87 @@
+package ma.fstt.springoracle.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SqlFingerprintTest {
+
+    @Test
+    void literalsAndBindsBecomePlaceholders() {
+        assertEquals("select * from emp where name = ? and id = ? and salary > ?",
+                SqlFingerprint.normalize("SELECT * FROM emp WHERE name = 'O''Brien' AND id = :id AND salary > 1.5e3"));
+        assertEquals("select ?, ?, ?, ?, ?, ? from dual",
+                SqlFingerprint.normalize("select q'[it's]', n'x', nq'{y}', 1.5e-3, .5, 2d from dual"));
+        assertEquals("select ? from dual where x = ?",
+                SqlFingerprint.normalize("select q'<a'b>' from dual where x = Q'!c!'"));
+    }
+
+    @Test
+    void commentsAreDroppedHintsKept() {
+        assertEquals("select /*+ index(e emp_idx) */ name from emp e where e.id = ?",
+                SqlFingerprint.normalize("SELECT /*+ INDEX(e  emp_idx) */ name -- trailing\n"
+                        + "FROM emp e /* note */ WHERE e.id = :id"));
+    }
+
+    @Test
+    void quotedIdentifiersKeepTheirCase() {
+        assertEquals("select \"MixedCase\".col from \"MixedCase\" where x >= ? and y <> ?",
+                SqlFingerprint.normalize("SELECT \"MixedCase\".Col FROM \"MixedCase\" WHERE x >= 10 AND y <> 2"));
+    }
+
+    @Test
+    void placeholderListsCollapse() {
+        assertEquals("select * from t where id in(?)", SqlFingerprint.normalize("select * from t where id in (1,2,3)"));
+        assertEquals("select * from t where id in(?)", SqlFingerprint.normalize("select * from t where id in (:a, :b)"));
+        assertEquals("insert into t(a, b) values(?)", SqlFingerprint.normalize("insert into t (a, b) values (1, 'x')"));
+        assertEquals(SqlFingerprint.id("select * from t where id in (1)"),
+                SqlFingerprint.id("select * from t where id in (1, 2, 3, 4, 5, 6, 7, 8, 9, 10)"));
+    }
+
+    @Test
+    void listsWithOtherItemsKeepEveryItem() {
+        assertEquals("select * from t where id in(?, ?, x)", SqlFingerprint.normalize("SELECT * FROM t WHERE id IN (1, 2, x)"));
+        assertEquals("select * from t where id in(?, x)", SqlFingerprint.normalize("SELECT * FROM t WHERE id IN (1, x)"));
+        assertEquals("select * from t where id in(x, ?, ?)", SqlFingerprint.normalize("SELECT * FROM t WHERE id IN (x, 1, 2)"));
+        assertNotEquals(SqlFingerprint.id("SELECT * FROM t WHERE id IN (1, 2, x)"),
+                SqlFingerprint.id("SELECT * FROM t WHERE id IN (1, x)"));
+        assertEquals("select f(a, ?), g(), h(?) from dual", SqlFingerprint.normalize("select f(a, 1), g(), h(1, 'x') from dual"));
+        assertEquals("select * from t where b in(?,(?))", SqlFingerprint.normalize("select * from t where b in (1, (2))"));
+    }
+
+    @Test
+    void tupleListsCollapse() {
+        assertEquals("select * from t where(a, b) in((?))",
+                SqlFingerprint.normalize("SELECT * FROM t WHERE (a, b) IN ((1,2),(3,4),(5,6))"));
+        assertEquals(SqlFingerprint.id("SELECT * FROM t WHERE (a, b) IN ((1, 2))"),
+                SqlFingerprint.id("SELECT * FROM t WHERE (a, b) IN ((1, 2), (3, 4))"));
+        assertEquals("select * from t where(a, b) in((?),(?, x))",
+                SqlFingerprint.normalize("SELECT * FROM t WHERE (a, b) IN ((1,2),(3,x))"));
+    }
+
+    @Test
+    void subqueriesAndUnbalancedText() {
+        assertEquals("select * from t where x in(?) and y in(select id from u where z in(?))",
+                SqlFingerprint.normalize("select * from t where x in (1, 2) and y in (select id from u where z in (3, 4))"));
+        assertEquals("select * from t where id in(?, ?", SqlFingerprint.normalize("select * from t where id in (1, 2"));
+        assertEquals("select ?) from dual", SqlFingerprint.normalize("select 1) from dual"));
+    }
+
+    @Test
+    void whitespaceAndCaseDoNotMatter() {
+        assertEquals(SqlFingerprint.id("select a from t where b = 1"),
+                SqlFingerprint.id("SELECT   a\n\tFROM T\nWHERE b=2"));
+    }
+
+    @Test
+    void hashIsTheFnvOfTheNormalizedText() {
+        String sql = "SELECT /*+ FULL(t) */ a, b FROM t WHERE c IN (1, 2, x) AND d = :d";
+        long hash = 0xcbf29ce484222325L;
+        for (char c : SqlFingerprint.normalize(sql).toCharArray()) {
+            hash = (hash ^ c) * 0x100000001b3L;
+        }
+        assertEquals(hash, SqlFingerprint.hash(sql));
+        assertEquals(16, SqlFingerprint.id(sql).length());
+    }
+}